@@ -0,0 +1,186 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import controllers.FileHandler;
+import models.Property;
+import models.Transaction;
+
+// JMH benchmarks for the FileHandler parse and write paths against synthetic datasets.
+// FileHandler resolves its data directory once per JVM, so every dataset size runs in
+// its own fork, which generates the dataset before FileHandler is first touched.
+// From the project root:
+//   mvn -P jmh package && java -Xmx8g -jar target/benchmarks.jar FileHandlerBenchmark
+// Pick sizes with -p rows=10000,1000000 and list options with -h.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Dhomefinder.watchFiles=false"})
+public class FileHandlerBenchmark {
+
+    private static final int PARSE_SAMPLE = 100_000;
+    private static final int WRITES_PER_OP = 1_000;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Path directory;
+    private FileHandler fileHandler;
+    private List<String> lines;
+    private List<Property> properties;
+    private List<Transaction> purchases;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("homefinder-bench-" + rows + "-");
+        SyntheticDataset.generate(directory, rows, 42);
+        System.setProperty("homefinder.dataDir", directory.toString());
+        fileHandler = FileHandler.getInstance();
+        if (!Paths.get(fileHandler.getFilePath()).startsWith(directory)) {
+            throw new IllegalStateException("FileHandler was loaded before the dataset was generated; run with forks");
+        }
+
+        lines = sampleLines(directory.resolve("transactions.txt"), PARSE_SAMPLE);
+        properties = fileHandler.readProperties();
+        Random random = new Random(7);
+        purchases = new ArrayList<>();
+        for (int i = 0; i < WRITES_PER_OP; i++) {
+            purchases.add(purchase(random));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    // Makes the next read parse the text files and rebuild their snapshots
+    @State(Scope.Thread)
+    public static class WithoutSnapshots {
+        @Setup(Level.Invocation)
+        public void deleteSnapshots(FileHandlerBenchmark benchmark) throws IOException {
+            Files.deleteIfExists(benchmark.directory.resolve("properties.csv.snap"));
+            Files.deleteIfExists(benchmark.directory.resolve("transactions.txt.snap"));
+        }
+    }
+
+    @Benchmark
+    public List<Property> readPropertiesText(WithoutSnapshots text) {
+        return fileHandler.readProperties();
+    }
+
+    @Benchmark
+    public List<Property> readPropertiesSnapshot() {
+        return fileHandler.readProperties();
+    }
+
+    @Benchmark
+    public List<Transaction> loadTransactionsText(WithoutSnapshots text) {
+        return fileHandler.loadTransactions();
+    }
+
+    @Benchmark
+    public List<Transaction> loadTransactionsSnapshot() {
+        return fileHandler.loadTransactions();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(PARSE_SAMPLE)
+    public void parseTransaction(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(fileHandler.parseTransaction(line));
+        }
+    }
+
+    @Benchmark
+    public void updatePropertiesFile() {
+        fileHandler.updatePropertiesFile(properties);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(WRITES_PER_OP)
+    public void writeTransaction() {
+        for (Transaction transaction : purchases) {
+            fileHandler.writeTransaction(transaction);
+        }
+    }
+
+    // A burst of appends, which the group-commit writer folds into a few writes
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @OperationsPerInvocation(WRITES_PER_OP)
+    public void writeTransactionAsync() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(purchases.size());
+        for (Transaction transaction : purchases) {
+            pending.add(fileHandler.writeTransactionAsync(transaction));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    // The first count rows, repeated if the file has fewer
+    private static List<String> sampleLines(Path file, int count) throws IOException {
+        List<String> rows;
+        try (Stream<String> lines = Files.lines(file)) {
+            rows = lines.skip(1).limit(count).toList();
+        }
+        List<String> sample = new ArrayList<>(count);
+        while (sample.size() < count) {
+            sample.addAll(rows.subList(0, Math.min(rows.size(), count - sample.size())));
+        }
+        return sample;
+    }
+
+    // A transaction shaped like the ones HomeFinderApp.buyProperty records
+    private static Transaction purchase(Random random) {
+        String scheme = "SCHEME " + random.nextInt(2000) + " RESIDENCE";
+        int sqFt = 500 + random.nextInt(2500);
+        double price = (50 + random.nextInt(3000)) * 1000.0;
+        return new Transaction.Builder()
+                .setProjectName(scheme)
+                .setTransactionDate(LocalDate.now())
+                .setTransactionPrice(price)
+                .setTransactionSqFt(sqFt)
+                .setSizeSqM((int) (sqFt / 10.7639))
+                .setPropertyType("Condominium")
+                .setNoOfFloors(1 + random.nextInt(40))
+                .setAddress("Unit " + random.nextInt(100000))
+                .setScheme(scheme)
+                .setYear(2010 + random.nextInt(15))
+                .setPricePerSqft(price / sqFt)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+// Minimal measurement harness shared by the benchmarks in this package:
+// untimed warmup iterations, then timed iterations with an optional untimed
+// setup step before each one. Results go to a volatile sink so the JIT
+// cannot discard the measured work.
+final class Bench {
+
+    interface Operation {
+        long run() throws Exception;
+    }
+
+    interface Setup {
+        void run() throws Exception;
+    }
+
+    private static volatile long sink;
+
+    private Bench() {
+    }
+
+    // Run an operation and print its timing; returns the mean nanoseconds per iteration
+    static double measure(String name, int warmups, int iterations, Operation operation) throws Exception {
+        return measure(name, warmups, iterations, null, operation, 0);
+    }
+
+    // As above, reporting throughput for operations that each process unitsPerOp items
+    static double measure(String name, int warmups, int iterations, Setup setup, Operation operation,
+            long unitsPerOp) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            if (setup != null) {
+                setup.run();
+            }
+            sink += operation.run();
+        }
+
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            if (setup != null) {
+                setup.run();
+            }
+            long start = System.nanoTime();
+            sink += operation.run();
+            samples[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(samples);
+        double mean = Arrays.stream(samples).average().orElse(0);
+        String throughput = unitsPerOp > 0
+                ? String.format("  %,14.0f items/s", unitsPerOp / (mean / 1e9))
+                : "";
+        System.out.printf("%-44s %12.3f ms/op  (min %.3f, median %.3f, max %.3f)%s%n",
+                name, mean / 1e6, samples[0] / 1e6, samples[iterations / 2] / 1e6,
+                samples[iterations - 1] / 1e6, throughput);
+        return mean;
+    }
+}
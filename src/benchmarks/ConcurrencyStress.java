@@ -0,0 +1,292 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import controllers.FileHandler;
+import models.MonthlyTrend;
+import models.Property;
+import models.Transaction;
+import models.User;
+
+// Multi-threaded stress run for FileHandler. Writer threads append transactions,
+// list properties and sign up users while reader threads scan the same files, then
+// the files are re-read to check that no row was lost, duplicated or torn. Every row
+// written here carries its writer and sequence number in the address (or username),
+// and its price is derived from them, so a torn or mixed-up row cannot pass as valid.
+// Runs in a child JVM against a fresh synthetic dataset. From the src directory:
+//   javac -d out $(find . -name "*.java") && java -cp out benchmarks.ConcurrencyStress [rows] [writers] [writesPerWriter]
+public class ConcurrencyStress {
+
+    private static final String SCHEME = "STRESS RESIDENCE";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--fork")) {
+            System.exit(runInThisJvm(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3])) ? 0 : 1);
+        }
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int writesPerWriter = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        Path directory = Files.createTempDirectory("homefinder-stress-");
+        int exit;
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-Dhomefinder.dataDir=" + directory);
+            command.add("-Dhomefinder.pbkdf2.iterations=1000"); // Sign-ups should stress the file, not the hasher
+            command.add("-Dhomefinder.walCompactThreshold=500"); // Compact the property log several times mid-run
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(ConcurrencyStress.class.getName());
+            command.add("--fork");
+            command.add(String.valueOf(rows));
+            command.add(String.valueOf(writers));
+            command.add(String.valueOf(writesPerWriter));
+            exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+        } finally {
+            deleteRecursively(directory);
+        }
+        System.exit(exit);
+    }
+
+    private static boolean runInThisJvm(int rows, int writers, int writesPerWriter) throws Exception {
+        Path directory = Paths.get(System.getProperty("homefinder.dataDir"));
+        SyntheticDataset.generate(directory, rows, 42);
+        FileHandler fileHandler = FileHandler.getInstance();
+
+        long baseTransactions = countTransactions(fileHandler);
+        int baseProperties = fileHandler.readProperties().size();
+        long baseRejects = fileHandler.getTransactionRejects().getTotal();
+        System.out.printf("== %,d rows, %d writers x %,d writes, %d readers ==%n",
+                rows, writers, writesPerWriter, writers);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicLong scans = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                await(start);
+                List<CompletableFuture<Void>> pending = new ArrayList<>();
+                for (int i = 0; i < writesPerWriter; i++) {
+                    pending.add(fileHandler.writeTransactionAsync(transaction(writer, i)));
+                    if (i % 10 == 0) {
+                        fileHandler.writeProperty(property(writer, i));
+                    }
+                    if (i % 100 == 0) {
+                        fileHandler.saveUser(new User("stress-" + writer + "-" + i, "pw", "x@y.z", User.Role.BUYER));
+                    }
+                }
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+            }, "stress-writer-" + w));
+        }
+
+        // Readers: every scan must see whole rows only, and never fewer than the previous scan
+        for (int r = 0; r < writers; r++) {
+            int reader = r;
+            threads.add(new Thread(() -> {
+                await(start);
+                long lastTransactions = 0;
+                int lastProperties = 0;
+                int lastUsers = 0;
+                while (writing.get()) {
+                    String problem = null;
+                    switch (reader % 3) {
+                        case 0: {
+                            long seen = scanTransactions(fileHandler, failures);
+                            problem = seen < lastTransactions ? "transaction scan went back from " + lastTransactions + " to " + seen : null;
+                            lastTransactions = seen;
+                            break;
+                        }
+                        case 1: {
+                            int seen = fileHandler.readProperties().size();
+                            problem = seen < lastProperties ? "listing went back from " + lastProperties + " to " + seen : null;
+                            lastProperties = seen;
+                            break;
+                        }
+                        default: {
+                            int seen = fileHandler.loadUsers().size();
+                            problem = seen < lastUsers ? "user list went back from " + lastUsers + " to " + seen : null;
+                            lastUsers = seen;
+                            fileHandler.getRecentTransactions(SCHEME, 5);
+                        }
+                    }
+                    if (problem != null) {
+                        failures.add(problem);
+                    }
+                    scans.incrementAndGet();
+                }
+            }, "stress-reader-" + r));
+        }
+
+        // Load the resident store and trends while writes are in flight
+        threads.add(new Thread(() -> {
+            await(start);
+            fileHandler.getPriceTrends();
+            fileHandler.getComparableSales();
+        }, "stress-loader"));
+
+        long startNanos = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads.subList(0, writers)) {
+            thread.join();
+        }
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        long written = (long) writers * writesPerWriter;
+        System.out.printf("%,d transactions, %,d properties, %,d users written in %.2f s while readers ran %,d scans%n",
+                written, writers * ((writesPerWriter + 9) / 10), writers * ((writesPerWriter + 99) / 100), seconds, scans.get());
+
+        // Final checks against the files and the resident structures
+        check(failures, countTransactions(fileHandler) == baseTransactions + written,
+                "transactions.txt holds " + countTransactions(fileHandler) + " rows, expected " + (baseTransactions + written));
+        check(failures, scanTransactions(fileHandler, failures) == written, "not every written transaction was read back intact");
+        check(failures, fileHandler.getTransactionRejects().getTotal() == baseRejects,
+                (fileHandler.getTransactionRejects().getTotal() - baseRejects) + " torn or malformed transaction rows");
+        check(failures, fileHandler.getTransactionStore().size() == baseTransactions + written,
+                "resident store holds " + fileHandler.getTransactionStore().size() + " rows, expected " + (baseTransactions + written));
+        check(failures, fileHandler.getRecentTransactions(SCHEME, Integer.MAX_VALUE).size() == written,
+                "scheme index holds " + fileHandler.getRecentTransactions(SCHEME, Integer.MAX_VALUE).size() + " rows, expected " + written);
+        long trendVolume = 0;
+        for (MonthlyTrend trend : fileHandler.getMonthlyTrends(SCHEME)) {
+            trendVolume += trend.getVolume();
+        }
+        check(failures, trendVolume == written, "price trends count " + trendVolume + " sales, expected " + written);
+
+        List<Property> properties = fileHandler.readProperties();
+        Set<String> addresses = new HashSet<>();
+        for (Property property : properties) {
+            if (property.getScheme().equals(SCHEME) && !addresses.add(property.getAddress())) {
+                failures.add("duplicate listing " + property.getAddress());
+            }
+        }
+        int expectedProperties = writers * ((writesPerWriter + 9) / 10);
+        check(failures, addresses.size() == expectedProperties && properties.size() == baseProperties + expectedProperties,
+                "listing holds " + addresses.size() + " stress properties, expected " + expectedProperties);
+
+        Set<String> usernames = new HashSet<>();
+        for (User user : fileHandler.loadUsers()) {
+            usernames.add(user.getUsername());
+        }
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < writesPerWriter; i += 100) {
+                check(failures, usernames.contains("stress-" + w + "-" + i), "user stress-" + w + "-" + i + " is missing");
+            }
+        }
+
+        for (String failure : failures) {
+            System.out.println("FAIL " + failure);
+        }
+        System.out.println(failures.isEmpty() ? "PASS: no lost, duplicated or torn rows" : "FAILED with " + failures.size() + " problems");
+        return failures.isEmpty();
+    }
+
+    // Rows written by this harness seen in one scan of transactions.txt; any with a
+    // price that does not match its address is reported as torn
+    private static long scanTransactions(FileHandler fileHandler, ConcurrentLinkedQueue<String> failures) {
+        long seen = 0;
+        try (Stream<Transaction> stream = fileHandler.streamTransactions(null)) {
+            for (Transaction transaction : (Iterable<Transaction>) stream::iterator) {
+                String address = transaction.getAddress();
+                if (!address.startsWith("stress ")) {
+                    continue;
+                }
+                String[] parts = address.split(" ");
+                double expected = price(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+                if (transaction.getTransactionPrice() != expected) {
+                    failures.add("torn row " + address + " with price " + transaction.getTransactionPrice());
+                }
+                seen++;
+            }
+        }
+        return seen;
+    }
+
+    private static long countTransactions(FileHandler fileHandler) {
+        try (Stream<Transaction> stream = fileHandler.streamTransactions(null)) {
+            return stream.count();
+        }
+    }
+
+    private static Transaction transaction(int writer, int sequence) {
+        return new Transaction.Builder()
+                .setProjectName(SCHEME)
+                .setTransactionDate(LocalDate.now())
+                .setTransactionPrice(price(writer, sequence))
+                .setTransactionSqFt(1000 + sequence % 1000)
+                .setSizeSqM(93)
+                .setPropertyType("Condominium")
+                .setNoOfFloors(1)
+                .setAddress("stress " + writer + " " + sequence)
+                .setScheme(SCHEME)
+                .setYear(2020)
+                .setPricePerSqft(0)
+                .build();
+    }
+
+    private static Property property(int writer, int sequence) {
+        return new Property.Builder()
+                .setSizeSqM(93)
+                .setSqFt(1000)
+                .setPropertyType("Condominium")
+                .setNoOfFloors(1)
+                .setAddress("stress " + writer + " " + sequence)
+                .setScheme(SCHEME)
+                .setPrice(price(writer, sequence))
+                .setYear(2020)
+                .setPricePerSqft(0)
+                .build();
+    }
+
+    private static double price(int writer, int sequence) {
+        return 100_000 + writer * 1_000_000.0 + sequence;
+    }
+
+    private static void check(ConcurrentLinkedQueue<String> failures, boolean ok, String problem) {
+        if (!ok) {
+            failures.add(problem);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.Random;
+
+import controllers.DateParser;
+
+// Compares the character-level DateParser against the DateTimeFormatter cascade
+// FileHandler used before. Run from the src directory:
+//   javac -d out $(find . -name "*.java") && java -cp out benchmarks.DateParserBenchmark
+public class DateParserBenchmark {
+
+    private static final int DATES = 100_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String[] dates = generateDates(DATES, new Random(42));
+
+        // Both parsers must agree before timing means anything
+        for (String date : dates) {
+            if (DateParser.parseEpochDay(date) != DateParser.parseWithFormatters(date).toEpochDay()) {
+                throw new IllegalStateException("Parsers disagree on " + date);
+            }
+        }
+
+        double formatterNanos = Bench.measure("Formatter cascade x" + DATES, WARMUP_ROUNDS, MEASURED_ROUNDS,
+                null, () -> runFormatters(dates), DATES);
+        double fastNanos = Bench.measure("DateParser x" + DATES, WARMUP_ROUNDS, MEASURED_ROUNDS,
+                null, () -> runFastPath(dates), DATES);
+        System.out.printf("Speedup: %.1fx%n", formatterNanos / fastNanos);
+    }
+
+    private static long runFormatters(String[] dates) {
+        long sum = 0;
+        for (String date : dates) {
+            sum += DateParser.parseWithFormatters(date).toEpochDay();
+        }
+        return sum;
+    }
+
+    private static long runFastPath(String[] dates) {
+        long sum = 0;
+        for (String date : dates) {
+            sum += DateParser.parseEpochDay(date);
+        }
+        return sum;
+    }
+
+    // Same mix of formats as transactions.txt: mostly d/M/yyyy, some dd/MM/yyyy and ISO rows
+    static String[] generateDates(int count, Random random) {
+        String[] dates = new String[count];
+        for (int i = 0; i < count; i++) {
+            int year = 2010 + random.nextInt(15);
+            int month = 1 + random.nextInt(12);
+            int day = 1 + random.nextInt(28);
+            int format = random.nextInt(10);
+            if (format < 7) {
+                dates[i] = day + "/" + month + "/" + year;
+            } else if (format < 9) {
+                dates[i] = String.format("%02d/%02d/%d", day, month, year);
+            } else {
+                dates[i] = String.format("%d-%02d-%02d", year, month, day);
+            }
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import controllers.PasswordHasher;
+
+// Logins per second for a range of PBKDF2 work factors, both cold (every login pays
+// the full hash) and warm (repeat logins answered by the verification cache), with
+// bursts going through the hasher's bounded pool the way LoginPage does. Run from src:
+//   javac -d out $(find . -name "*.java") && java -cp out benchmarks.LoginBenchmark [iterations...]
+public class LoginBenchmark {
+
+    private static final int[] DEFAULT_WORK_FACTORS = {10_000, 100_000, 310_000, 600_000};
+    private static final int BURST = 32; // Stays below the pool's queue bound
+    private static final String PASSWORD = "correct horse battery staple";
+
+    public static void main(String[] args) throws Exception {
+        int[] workFactors = DEFAULT_WORK_FACTORS;
+        if (args.length > 0) {
+            workFactors = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                workFactors[i] = Integer.parseInt(args[i].replace("_", ""));
+            }
+        }
+
+        for (int iterations : workFactors) {
+            PasswordHasher cold = new PasswordHasher(iterations, 0);
+            PasswordHasher warm = new PasswordHasher(iterations, 1024);
+            String stored = cold.hash(PASSWORD);
+            if (!cold.verify(PASSWORD, stored) || cold.verify(PASSWORD + "x", stored)) {
+                throw new IllegalStateException("Hasher failed to verify its own hash");
+            }
+            warm.verify(PASSWORD, stored); // Prime the cache
+
+            System.out.println("-- " + String.format("%,d", iterations) + " iterations");
+            Bench.measure("cold login, caller thread", 1, 5, null,
+                    () -> cold.verify(PASSWORD, stored) ? 1 : 0, 1);
+            Bench.measure("cold login burst x" + BURST + ", hasher pool", 1, 3, null,
+                    () -> burst(cold, stored), BURST);
+            Bench.measure("cached login x10000, caller thread", 2, 5, null,
+                    () -> repeat(warm, stored, 10_000), 10_000);
+        }
+    }
+
+    private static long burst(PasswordHasher hasher, String stored) {
+        List<CompletableFuture<Boolean>> logins = new ArrayList<>(BURST);
+        for (int i = 0; i < BURST; i++) {
+            logins.add(hasher.submit(() -> hasher.verify(PASSWORD, stored)));
+        }
+        long ok = 0;
+        for (CompletableFuture<Boolean> login : logins) {
+            ok += login.join() ? 1 : 0;
+        }
+        return ok;
+    }
+
+    private static long repeat(PasswordHasher hasher, String stored, int count) {
+        long ok = 0;
+        for (int i = 0; i < count; i++) {
+            ok += hasher.verify(PASSWORD, stored) ? 1 : 0;
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import controllers.ListingRegistry;
+
+// Purchase attempts per second through ListingRegistry, against a registry guarded
+// by one lock for comparison. Uncontended: every thread buys its own listings.
+// Contended: every thread tries to buy every listing, in the same order, so each
+// purchase is a race that exactly one thread must win; the run fails otherwise.
+// Run from src:
+//   javac -d out $(find . -name "*.java") && java -cp out benchmarks.PurchaseBenchmark [threads] [listingsPerThread]
+public class PurchaseBenchmark {
+
+    interface Registry {
+        boolean tryPurchase(long id);
+    }
+
+    // The same check-then-mark under a single lock
+    private static class LockedRegistry implements Registry {
+        private final Map<Long, Boolean> sold = new HashMap<>();
+
+        @Override
+        public synchronized boolean tryPurchase(long id) {
+            return sold.putIfAbsent(id, Boolean.TRUE) == null;
+        }
+    }
+
+    private static Registry registry;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int listingsPerThread = args.length > 1 ? Integer.parseInt(args[1].replace("_", "")) : 200_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            System.out.printf("-- %d threads, %,d listings per thread%n", threads, listingsPerThread);
+            long attempts = (long) threads * listingsPerThread;
+            Bench.Setup casRegistry = () -> {
+                ListingRegistry listings = new ListingRegistry();
+                registry = id -> listings.tryPurchase(id, 0) == ListingRegistry.PurchaseResult.PURCHASED;
+            };
+            Bench.Setup lockedRegistry = () -> registry = new LockedRegistry();
+
+            Bench.measure("uncontended, compare-and-set", 2, 5, casRegistry,
+                    () -> run(pool, threads, listingsPerThread, false), attempts);
+            Bench.measure("uncontended, single lock", 2, 5, lockedRegistry,
+                    () -> run(pool, threads, listingsPerThread, false), attempts);
+            Bench.measure("contended, compare-and-set", 2, 5, casRegistry,
+                    () -> run(pool, threads, listingsPerThread, true), attempts);
+            Bench.measure("contended, single lock", 2, 5, lockedRegistry,
+                    () -> run(pool, threads, listingsPerThread, true), attempts);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // All threads start together; returns the number of purchases won
+    private static long run(ExecutorService pool, int threads, int listingsPerThread, boolean contended) throws Exception {
+        Registry target = registry;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            long firstId = contended ? 1 : 1 + (long) t * listingsPerThread;
+            results.add(pool.submit(() -> {
+                start.await();
+                long won = 0;
+                for (long id = firstId; id < firstId + listingsPerThread; id++) {
+                    if (target.tryPurchase(id)) {
+                        won++;
+                    }
+                }
+                return won;
+            }));
+        }
+        start.countDown();
+        long won = 0;
+        for (Future<Long> result : results) {
+            won += result.get();
+        }
+        long expected = contended ? listingsPerThread : (long) threads * listingsPerThread;
+        if (won != expected) {
+            throw new IllegalStateException(won + " purchases succeeded, expected " + expected);
+        }
+        return won;
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Writes transactions.txt, properties.csv and users.txt with the same columns and
+// value shapes as the files shipped in src/, at any row count
+final class SyntheticDataset {
+
+    static final String TRANSACTION_HEADER =
+            "DateOfValuation\tSize SqM\tSqFt\tPropertyType\tNoOfFloors\tADDRESS\tSCHEME\tPRICE\tYEAR\tpricePerSqft";
+    static final String PROPERTY_HEADER =
+            "SizeSqM,SqFt,PropertyType,NoOfFloors,Address,Scheme,Price,Year,PricePerSqft";
+
+    private static final String[] PROPERTY_TYPES = {
+        "Condominium/Apartment", "Serviced Residence", "Apartment", "Condominium",
+        "Double-Storey Terrace", "Semi-Detached House", "Bungalow", "Commercial Lot"
+    };
+    private static final String[] STREETS = {
+        "JLN DESA BAKTI 2", "JALAN 3/109C", "JLN 2/109C", "JALAN SS 2/24", "PERSIARAN KLCC", "JALAN AMPANG"
+    };
+    private static final int SCHEMES = 2000;
+
+    private SyntheticDataset() {
+    }
+
+    static void generate(Path directory, int rows, long seed) throws IOException {
+        Files.createDirectories(directory);
+        writeTransactions(directory.resolve("transactions.txt"), rows, new Random(seed));
+        writeProperties(directory.resolve("properties.csv"), rows, new Random(seed + 1));
+        Files.write(directory.resolve("users.txt"), new byte[0]);
+    }
+
+    static String transactionLine(Random random) {
+        int sizeSqM = 40 + random.nextInt(260);
+        int sqFt = (int) Math.round(sizeSqM * 10.7639);
+        int price = (50 + random.nextInt(3000)) * 1000;
+        int year = 2010 + random.nextInt(15);
+        return String.join("\t",
+                date(random, year),
+                String.valueOf(sizeSqM),
+                String.valueOf(sqFt),
+                PROPERTY_TYPES[random.nextInt(PROPERTY_TYPES.length)],
+                String.valueOf(1 + random.nextInt(40)),
+                address(random),
+                scheme(random),
+                String.valueOf(price),
+                String.valueOf(year),
+                String.valueOf((double) price / sqFt));
+    }
+
+    private static void writeTransactions(Path file, int rows, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(TRANSACTION_HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                writer.write(transactionLine(random));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void writeProperties(Path file, int rows, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(PROPERTY_HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                int sizeSqM = 40 + random.nextInt(260);
+                int sqFt = (int) Math.round(sizeSqM * 10.7639);
+                double price = (50 + random.nextInt(3000)) * 1000.0;
+                writer.write(String.join(",",
+                        String.valueOf(sizeSqM),
+                        String.valueOf(sqFt),
+                        PROPERTY_TYPES[random.nextInt(PROPERTY_TYPES.length)],
+                        String.valueOf(1 + random.nextInt(40)),
+                        "Unit " + random.nextInt(100000),
+                        scheme(random),
+                        String.valueOf(price),
+                        String.valueOf(2000 + random.nextInt(25)),
+                        String.valueOf(Math.round(price / sqFt))));
+                writer.newLine();
+            }
+        }
+    }
+
+    // The feed mixes d/M/yyyy, dd/MM/yyyy and ISO dates
+    private static String date(Random random, int year) {
+        int month = 1 + random.nextInt(12);
+        int day = 1 + random.nextInt(28);
+        int format = random.nextInt(10);
+        if (format < 7) {
+            return day + "/" + month + "/" + year;
+        } else if (format < 9) {
+            return String.format("%02d/%02d/%d", day, month, year);
+        }
+        return String.format("%d-%02d-%02d", year, month, day);
+    }
+
+    private static String address(Random random) {
+        return (char) ('A' + random.nextInt(6)) + "-" + (1 + random.nextInt(40)) + "-" + (1 + random.nextInt(12))
+                + "," + STREETS[random.nextInt(STREETS.length)];
+    }
+
+    private static String scheme(Random random) {
+        return "SCHEME " + random.nextInt(SCHEMES) + " RESIDENCE";
+    }
+}
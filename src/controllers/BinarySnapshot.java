@@ -0,0 +1,319 @@
+package controllers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import models.PriceTrends;
+import models.Property;
+import models.StringDictionary;
+import models.TransactionStore;
+
+// Compact binary copies of properties.csv and transactions.txt.
+//
+// Layout (big-endian):
+//   header      magic, version, kind, source length, source modified time, row count
+//   dictionaries count, then for each: entry count and length-prefixed UTF-8 strings
+//   columns     one fixed-width int, long or double array per field, row count entries each
+//   rollups     transactions only: the PriceTrends quantile sketches (since version 2)
+// Version 3 added the property id column, version 4 the transaction type, floors and year columns.
+//
+// The header remembers which version of the text file it was built from, so a
+// snapshot is ignored as soon as the text source changes and regenerated from it.
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x48465348; // "HFSH"
+    private static final int VERSION = 4;
+    private static final byte KIND_PROPERTIES = 1;
+    private static final byte KIND_TRANSACTIONS = 2;
+
+    private BinarySnapshot() {
+    }
+
+    // Size and modification time of a source file, to be read before parsing it
+    public static BasicFileAttributes sourceVersion(Path sourceFile) throws IOException {
+        return Files.readAttributes(sourceFile, BasicFileAttributes.class);
+    }
+
+    // Write properties; string columns share one dictionary
+    public static void writeProperties(Path snapshotFile, BasicFileAttributes source, List<Property> properties) throws IOException {
+        int rows = properties.size();
+        StringDictionary strings = new StringDictionary();
+        long[] ids = new long[rows];
+        int[] sizeSqM = new int[rows];
+        int[] sqFt = new int[rows];
+        int[] types = new int[rows];
+        int[] floors = new int[rows];
+        int[] addresses = new int[rows];
+        int[] schemes = new int[rows];
+        double[] prices = new double[rows];
+        int[] years = new int[rows];
+        double[] pricePerSqft = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            Property property = properties.get(i);
+            ids[i] = property.getId();
+            sizeSqM[i] = property.getSizeSqM();
+            sqFt[i] = property.getSqFt();
+            types[i] = strings.intern(property.getPropertyType());
+            floors[i] = property.getNoOfFloors();
+            addresses[i] = strings.intern(property.getAddress());
+            schemes[i] = strings.intern(property.getScheme());
+            prices[i] = property.getPrice();
+            years[i] = property.getYear();
+            pricePerSqft[i] = property.getPricePerSqft();
+        }
+
+        write(snapshotFile, source, KIND_PROPERTIES, rows, out -> {
+            writeDictionaries(out, strings);
+            writeInts(out, sizeSqM, rows);
+            writeInts(out, sqFt, rows);
+            writeInts(out, types, rows);
+            writeInts(out, floors, rows);
+            writeInts(out, addresses, rows);
+            writeInts(out, schemes, rows);
+            writeDoubles(out, prices, rows);
+            writeInts(out, years, rows);
+            writeDoubles(out, pricePerSqft, rows);
+            writeLongs(out, ids, rows);
+        });
+    }
+
+    // Read properties, or return null if the snapshot is missing, stale or unreadable
+    public static List<Property> readProperties(Path snapshotFile, Path sourceFile) {
+        return read(snapshotFile, sourceFile, KIND_PROPERTIES, (buffer, rows) -> {
+            List<String> strings = readDictionaries(buffer).get(0);
+            int[] sizeSqM = readInts(buffer, rows);
+            int[] sqFt = readInts(buffer, rows);
+            int[] types = readInts(buffer, rows);
+            int[] floors = readInts(buffer, rows);
+            int[] addresses = readInts(buffer, rows);
+            int[] schemes = readInts(buffer, rows);
+            double[] prices = readDoubles(buffer, rows);
+            int[] years = readInts(buffer, rows);
+            double[] pricePerSqft = readDoubles(buffer, rows);
+            long[] ids = readLongs(buffer, rows);
+
+            List<Property> properties = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                properties.add(new Property.Builder()
+                        .setId(ids[i])
+                        .setSizeSqM(sizeSqM[i])
+                        .setSqFt(sqFt[i])
+                        .setPropertyType(strings.get(types[i]))
+                        .setNoOfFloors(floors[i])
+                        .setAddress(strings.get(addresses[i]))
+                        .setScheme(strings.get(schemes[i]))
+                        .setPrice(prices[i])
+                        .setYear(years[i])
+                        .setPricePerSqft(pricePerSqft[i])
+                        .build());
+            }
+            return properties;
+        });
+    }
+
+    // Write a transaction store column by column, keeping its three dictionaries,
+    // followed by the price rollups computed from it
+    public static void writeTransactions(Path snapshotFile, BasicFileAttributes source, TransactionStore store,
+            PriceTrends trends) throws IOException {
+        int rows = store.size();
+        int[] epochDays = new int[rows];
+        double[] prices = new double[rows];
+        int[] sqFts = new int[rows];
+        int[] projectIds = new int[rows];
+        int[] addressIds = new int[rows];
+        int[] typeIds = new int[rows];
+        int[] floors = new int[rows];
+        int[] years = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            epochDays[row] = store.getEpochDay(row);
+            prices[row] = store.getPrice(row);
+            sqFts[row] = store.getSqFt(row);
+            projectIds[row] = store.getProjectId(row);
+            addressIds[row] = store.getAddressId(row);
+            typeIds[row] = store.getTypeId(row);
+            floors[row] = store.getNoOfFloors(row);
+            years[row] = store.getYear(row);
+        }
+
+        write(snapshotFile, source, KIND_TRANSACTIONS, rows, out -> {
+            writeDictionaries(out, store.getProjects(), store.getAddresses(), store.getTypes());
+            writeInts(out, epochDays, rows);
+            writeDoubles(out, prices, rows);
+            writeInts(out, sqFts, rows);
+            writeInts(out, projectIds, rows);
+            writeInts(out, addressIds, rows);
+            writeInts(out, typeIds, rows);
+            writeInts(out, floors, rows);
+            writeInts(out, years, rows);
+            trends.writeTo(out);
+        });
+    }
+
+    // Read a transaction store, or return null if the snapshot is missing, stale or unreadable
+    public static TransactionStore readTransactions(Path snapshotFile, Path sourceFile) {
+        return read(snapshotFile, sourceFile, KIND_TRANSACTIONS, (buffer, rows) -> {
+            List<List<String>> dictionaries = readDictionaries(buffer);
+            int[] epochDays = readInts(buffer, rows);
+            double[] prices = readDoubles(buffer, rows);
+            int[] sqFts = readInts(buffer, rows);
+            int[] projectIds = readInts(buffer, rows);
+            int[] addressIds = readInts(buffer, rows);
+            int[] typeIds = readInts(buffer, rows);
+            int[] floors = readInts(buffer, rows);
+            int[] years = readInts(buffer, rows);
+            return TransactionStore.fromColumns(rows, epochDays, prices, sqFts, projectIds, addressIds,
+                    typeIds, floors, years, dictionaries.get(0), dictionaries.get(1), dictionaries.get(2));
+        });
+    }
+
+    // Read just the price rollups, or return null if the snapshot is missing, stale or unreadable
+    public static PriceTrends readPriceTrends(Path snapshotFile, Path sourceFile) {
+        return read(snapshotFile, sourceFile, KIND_TRANSACTIONS, (buffer, rows) -> {
+            readDictionaries(buffer);
+            int columnBytes = Integer.BYTES * 7 + Double.BYTES;
+            buffer.position(buffer.position() + checkCount(rows, columnBytes, buffer) * columnBytes);
+            return PriceTrends.readFrom(buffer);
+        });
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface Reader<T> {
+        T read(ByteBuffer buffer, int rows) throws IOException;
+    }
+
+    private static void write(Path snapshotFile, BasicFileAttributes source, byte kind, int rows, Body body) throws IOException {
+        // A temp file of its own, since concurrent readers may each be refreshing the snapshot
+        Path temp = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeByte(kind);
+                out.writeLong(source.size());
+                out.writeLong(source.lastModifiedTime().toMillis());
+                out.writeInt(rows);
+                body.write(out);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static <T> T read(Path snapshotFile, Path sourceFile, byte kind, Reader<T> reader) {
+        if (!Files.exists(snapshotFile) || !Files.exists(sourceFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BasicFileAttributes source = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.get() != kind
+                    || buffer.getLong() != source.size()
+                    || buffer.getLong() != source.lastModifiedTime().toMillis()) {
+                return null;
+            }
+            int rows = checkCount(buffer.getInt(), Integer.BYTES, buffer); // Every kind has int columns
+            return reader.read(buffer, rows);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot " + snapshotFile + ": " + e);
+            return null;
+        }
+    }
+
+    private static void writeDictionaries(DataOutputStream out, StringDictionary... dictionaries) throws IOException {
+        out.writeInt(dictionaries.length);
+        for (StringDictionary dictionary : dictionaries) {
+            out.writeInt(dictionary.size());
+            for (String value : dictionary.values()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static List<List<String>> readDictionaries(ByteBuffer buffer) throws IOException {
+        int count = checkCount(buffer.getInt(), Integer.BYTES, buffer);
+        List<List<String>> dictionaries = new ArrayList<>(count);
+        byte[] scratch = new byte[256];
+        for (int d = 0; d < count; d++) {
+            int size = checkCount(buffer.getInt(), Integer.BYTES, buffer);
+            List<String> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int length = checkCount(buffer.getInt(), 1, buffer);
+                if (scratch.length < length) {
+                    scratch = new byte[length];
+                }
+                buffer.get(scratch, 0, length);
+                values.add(new String(scratch, 0, length, StandardCharsets.UTF_8));
+            }
+            dictionaries.add(values);
+        }
+        return dictionaries;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] column, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            out.writeInt(column[i]);
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] column, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            out.writeLong(column[i]);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] column, int rows) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            out.writeDouble(column[i]);
+        }
+    }
+
+    // A count read from the snapshot, checked against the bytes left in it before anything
+    // is allocated for it; a corrupt file then reads as an unreadable snapshot
+    private static int checkCount(int count, int entryBytes, ByteBuffer buffer) throws IOException {
+        if (count < 0 || (long) count * entryBytes > buffer.remaining()) {
+            throw new IOException("implausible count " + count);
+        }
+        return count;
+    }
+
+    // Bulk-copy a fixed-width column out of the mapped file
+    private static int[] readInts(ByteBuffer buffer, int rows) throws IOException {
+        int[] column = new int[checkCount(rows, Integer.BYTES, buffer)];
+        buffer.asIntBuffer().get(column);
+        buffer.position(Math.toIntExact(buffer.position() + (long) rows * Integer.BYTES));
+        return column;
+    }
+
+    private static long[] readLongs(ByteBuffer buffer, int rows) throws IOException {
+        long[] column = new long[checkCount(rows, Long.BYTES, buffer)];
+        buffer.asLongBuffer().get(column);
+        buffer.position(Math.toIntExact(buffer.position() + (long) rows * Long.BYTES));
+        return column;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int rows) throws IOException {
+        double[] column = new double[checkCount(rows, Double.BYTES, buffer)];
+        buffer.asDoubleBuffer().get(column);
+        buffer.position(Math.toIntExact(buffer.position() + (long) rows * Double.BYTES));
+        return column;
+    }
+}
@@ -0,0 +1,304 @@
+package controllers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Follows data files that other programs append to while the app runs.
+// A WatchService on their directory reports changes; the events for a file are
+// debounced, so a burst of writes is handled once, after the file has been quiet for
+// the debounce delay (or at the latest MAX_DELAY_FACTOR delays after the burst began).
+// The file is then compared with what was last read from it. If it only grew, just
+// the appended bytes are read and their complete lines handed to its subscribers; a
+// trailing partial line waits for the rest. If it shrank, was replaced (a rename over
+// it gives it a new file key) or no longer ends a line where reading stopped, the
+// subscribers are told to reload it instead.
+public class DataFileWatcher implements Closeable {
+    private static final int READ_CHUNK = 1024 * 1024; // Appended lines are delivered at most about this many bytes at a time
+    private static final int MAX_DELAY_FACTOR = 10;
+
+    // Lines appended to a file, or a reset when it has to be reloaded from scratch
+    public static final class Delta {
+        private final boolean reset;
+        private final List<String> lines;
+        private final long[] offsets; // Start of each line
+        private final long[] ends; // Just past each line's separator
+        private final long end;
+
+        private Delta(boolean reset, List<String> lines, long[] offsets, long[] ends, long end) {
+            this.reset = reset;
+            this.lines = lines;
+            this.offsets = offsets;
+            this.ends = ends;
+            this.end = end;
+        }
+
+        public boolean isReset() {
+            return reset;
+        }
+
+        // Complete non-blank lines without their separators, in file order
+        public List<String> getLines() {
+            return lines;
+        }
+
+        // Byte offset of a line in the file
+        public long getOffset(int line) {
+            return offsets[line];
+        }
+
+        // Bytes a line takes in the file, separator included
+        public int getLength(int line) {
+            return (int) (ends[line] - offsets[line]);
+        }
+
+        // Where the next delta will start; after a reset, the file's length when it was seen
+        public long getEnd() {
+            return end;
+        }
+    }
+
+    public interface Subscriber {
+        void changed(Delta delta);
+    }
+
+    private static class Followed {
+        final Path file;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        long offset; // Read up to here; only the refresh thread touches offset and fileKey
+        Object fileKey;
+        ScheduledFuture<?> pending; // Guarded by the watcher
+        long burstStart;
+
+        Followed(Path file) {
+            this.file = file;
+        }
+    }
+
+    private final Path directory;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<Path, Followed> followed = new ConcurrentHashMap<>(); // By file name
+    private final ScheduledExecutorService refresher;
+    private final Thread watcher;
+
+    public DataFileWatcher(Path directory, long debounceMillis) throws IOException {
+        this.directory = directory;
+        this.debounceMillis = debounceMillis;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "data-file-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher = new Thread(this::watchLoop, "data-file-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    // Deliver changes to a file in this directory from now on; what it holds already is not delivered
+    public void follow(Path file, Subscriber subscriber) throws IOException {
+        Path name = file.getFileName();
+        Followed entry = followed.get(name);
+        if (entry == null) {
+            Followed created = new Followed(directory.resolve(name));
+            // The starting point is taken on the refresh thread, which owns the offsets
+            try {
+                refresher.submit(() -> {
+                    BasicFileAttributes attributes = attributes(created.file);
+                    created.offset = attributes == null ? 0 : attributes.size();
+                    created.fileKey = attributes == null ? null : attributes.fileKey();
+                    return null;
+                }).get();
+            } catch (Exception e) {
+                throw new IOException("Could not start following " + file, e);
+            }
+            entry = followed.putIfAbsent(name, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        entry.subscribers.add(subscriber);
+    }
+
+    public void unfollow(Path file, Subscriber subscriber) {
+        Followed entry = followed.get(file.getFileName());
+        if (entry != null) {
+            entry.subscribers.remove(subscriber);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close(); // Ends the watch loop
+        refresher.shutdownNow();
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (ClosedWatchServiceException e) {
+                return;
+            } catch (InterruptedException e) {
+                continue; // Only close() stops the watcher
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost; look at every file
+                    for (Followed entry : followed.values()) {
+                        changed(entry);
+                    }
+                } else {
+                    Followed entry = followed.get((Path) event.context());
+                    if (entry != null) {
+                        changed(entry);
+                    }
+                }
+            }
+            if (!key.reset()) {
+                System.err.println("Stopped watching " + directory + "; it is no longer accessible");
+                return;
+            }
+        }
+    }
+
+    // Push the file's refresh back to debounceMillis from now, unless its burst has
+    // already waited the longest it may
+    private synchronized void changed(Followed entry) {
+        long now = System.nanoTime();
+        if (entry.pending == null) {
+            entry.burstStart = now;
+        } else if (now - entry.burstStart >= TimeUnit.MILLISECONDS.toNanos(debounceMillis * MAX_DELAY_FACTOR)) {
+            return;
+        } else {
+            entry.pending.cancel(false);
+        }
+        entry.pending = refresher.schedule(() -> refresh(entry), debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh(Followed entry) {
+        synchronized (this) {
+            entry.pending = null; // Events from here on start a new burst
+        }
+        try {
+            BasicFileAttributes attributes = attributes(entry.file);
+            if (attributes == null) {
+                return; // Deleted, or mid-rename; its creation brings another event
+            }
+            try (FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (!Objects.equals(attributes.fileKey(), entry.fileKey) || size < entry.offset
+                        || !endsLineAt(channel, entry.offset)) {
+                    entry.offset = size;
+                    entry.fileKey = attributes.fileKey();
+                    deliver(entry, new Delta(true, List.of(), new long[0], new long[0], size));
+                } else if (size > entry.offset) {
+                    readAppended(entry, channel, size);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Gone between the stat and the open; handled when it comes back
+        } catch (IOException e) {
+            System.err.println("Could not read the changes to " + entry.file + ": " + e.getMessage());
+        }
+    }
+
+    // Deliver the complete lines between the last offset read and size, a chunk at a time
+    private void readAppended(Followed entry, FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_CHUNK, size - entry.offset));
+        while (entry.offset < size) {
+            long start = entry.offset;
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), size - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // Fill the chunk
+            }
+            byte[] bytes = buffer.array();
+            int filled = buffer.position();
+            int lastNewline = filled - 1;
+            while (lastNewline >= 0 && bytes[lastNewline] != '\n') {
+                lastNewline--;
+            }
+            if (lastNewline < 0) {
+                if (start + filled >= size) {
+                    return; // Only a partial line so far
+                }
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2); // A line longer than the chunk
+                continue;
+            }
+
+            List<String> lines = new ArrayList<>();
+            long[] offsets = new long[lastNewline + 1];
+            long[] ends = new long[lastNewline + 1];
+            int lineStart = 0;
+            for (int i = 0; i <= lastNewline; i++) {
+                if (bytes[i] == '\n') {
+                    int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                    if (lineEnd > lineStart) {
+                        offsets[lines.size()] = start + lineStart;
+                        ends[lines.size()] = start + i + 1;
+                        lines.add(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            entry.offset = start + lastNewline + 1;
+            if (!lines.isEmpty()) {
+                deliver(entry, new Delta(false, lines, offsets, ends, entry.offset));
+            }
+        }
+    }
+
+    private void deliver(Followed entry, Delta delta) {
+        for (Subscriber subscriber : entry.subscribers) {
+            try {
+                subscriber.changed(delta);
+            } catch (RuntimeException e) {
+                System.err.println("A subscriber failed to handle changes to " + entry.file + ": " + e);
+            }
+        }
+    }
+
+    // A file rewritten to at least its old length is caught by no longer ending a line where reading stopped
+    private static boolean endsLineAt(FileChannel channel, long offset) throws IOException {
+        if (offset == 0) {
+            return true;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        return channel.read(last, offset - 1) == 1 && last.get(0) == '\n';
+    }
+
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package controllers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Parses transaction dates into epoch days.
+// The formats found in the feed (d/M/yyyy, dd/MM/yyyy and yyyy-MM-dd) are recognised
+// by looking at the characters directly, without allocating or throwing. Anything
+// else, including dates the formatters would adjust such as 31/4/2019, goes through
+// the original DateTimeFormatter cascade so results are unchanged.
+public final class DateParser {
+
+    // Returned by tryParseEpochDay when the fast path does not apply
+    public static final int INVALID = Integer.MIN_VALUE;
+
+    private static final DateTimeFormatter[] DATE_FORMATTERS = {
+        DateTimeFormatter.ofPattern("d/M/yyyy"),
+        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+        DateTimeFormatter.ISO_LOCAL_DATE
+    };
+
+    private DateParser() {
+    }
+
+    // Parse a trimmed date into an epoch day, throwing DateTimeParseException if no format matches
+    public static int parseEpochDay(CharSequence text) {
+        int epochDay = tryParseEpochDay(text);
+        if (epochDay != INVALID) {
+            return epochDay;
+        }
+        return (int) parseWithFormatters(text.toString()).toEpochDay();
+    }
+
+    // Fast path only: the epoch day, or INVALID if the text is not a plain valid date in a known format
+    public static int tryParseEpochDay(CharSequence text) {
+        int length = text.length();
+        if (length == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            return toEpochDay(year, month, day);
+        }
+
+        // d/M/yyyy with one or two digits for day and month
+        int firstSlash = length > 1 && text.charAt(1) == '/' ? 1 : length > 2 && text.charAt(2) == '/' ? 2 : -1;
+        if (firstSlash < 0) {
+            return INVALID;
+        }
+        int secondSlash = length > firstSlash + 2 && text.charAt(firstSlash + 2) == '/' ? firstSlash + 2
+                : length > firstSlash + 3 && text.charAt(firstSlash + 3) == '/' ? firstSlash + 3 : -1;
+        if (secondSlash < 0 || length - secondSlash - 1 != 4) {
+            return INVALID;
+        }
+        int day = digits(text, 0, firstSlash);
+        int month = digits(text, firstSlash + 1, secondSlash);
+        int year = digits(text, secondSlash + 1, length);
+        return toEpochDay(year, month, day);
+    }
+
+    // The original parser: try each formatter in turn, relying on exceptions for misses
+    public static LocalDate parseWithFormatters(String dateStr) {
+        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
+            try {
+                return LocalDate.parse(dateStr, formatter);
+            } catch (DateTimeParseException e) {
+                // Continue trying the next format
+            }
+        }
+        throw new DateTimeParseException("Date format is invalid: " + dateStr, dateStr, 0);
+    }
+
+    // Decimal value of text[start, end), or -1 if any character is not a digit
+    private static int digits(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Days since 1970-01-01 for a valid date, or INVALID
+    private static int toEpochDay(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        // Count from March so the leap day falls at the end of the year
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -6,33 +6,164 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import models.ComparableSales;
+import models.MonthlyTrend;
+import models.PriceTrends;
 import models.Property;
 import models.Transaction;
+import models.TransactionStore;
 import models.User;
+import models.Valuation;
 
 public class FileHandler {
 
-    private static final String USER_FILE_PATH = "users.txt";
-    private static final String FILE_PATH = "properties.csv";
-    private static final String TRANSACTION_FILE_PATH = "transactions.txt";
+    // Told when transactions.txt changes under the app: appended holds the rows another
+    // program added, or is empty when the file was rewritten and everything is reloaded
+    public interface TransactionListener {
+        void transactionsChanged(List<Transaction> appended);
+    }
+
+    // Directory holding the data files; defaults to the working directory.
+    // Set -Dhomefinder.dataDir=... to run against another dataset (e.g. the benchmarks).
+    private static final String DATA_DIR = System.getProperty("homefinder.dataDir", "");
+
+    private static final String USER_FILE_PATH = dataFile("users.txt");
+    private static final String FILE_PATH = dataFile("properties.csv");
+    private static final String TRANSACTION_FILE_PATH = dataFile("transactions.txt");
+    private static final String TRANSACTION_INDEX_PATH = dataFile("transactions.txt.idx");
+    private static final String PROPERTY_SNAPSHOT_PATH = dataFile("properties.csv.snap");
+    private static final String LISTING_TABLE_PATH = dataFile("properties.csv.tbl");
+    private static final String TRANSACTION_SNAPSHOT_PATH = dataFile("transactions.txt.snap");
+
+    // transactions.txt is parsed in parallel chunks once it is at least this large;
+    // -Dhomefinder.loadChunks forces a chunk count
+    private static final long PARALLEL_LOAD_MIN_BYTES = 8L * 1024 * 1024;
+    private static final long MIN_CHUNK_BYTES = 2L * 1024 * 1024;
+
+    // Rows between progress reports and cancellation checks while scanning transactions.txt
+    private static final int PROGRESS_INTERVAL = 16 * 1024;
+
+    // Background I/O for the async methods: virtual threads when the JDK has them (21+),
+    // otherwise a cached pool of daemon threads
+    private static final ExecutorService IO_EXECUTOR = createIoExecutor();
+
+    // How long the data files must be quiet after a change before the watcher reads it
+    private static final long WATCH_DEBOUNCE_MILLIS = Long.getLong("homefinder.watchDebounceMillis", 250);
 
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-        DateTimeFormatter.ofPattern("d/M/yyyy"),
-        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-        DateTimeFormatter.ISO_LOCAL_DATE
-    };
+    static final String PROPERTY_HEADER = "SizeSqM,SqFt,PropertyType,NoOfFloors,Address,Scheme,Price,Year,PricePerSqft,Id";
 
     // Singleton instance
     private static volatile FileHandler instance;
 
+    // Adds and sales not yet folded into properties.csv
+    private final PropertyLog propertyLog;
+
+    // Which listings have been claimed by a buyer, so no property is sold twice
+    private final ListingRegistry listings = new ListingRegistry();
+
+    // Listing shared with the other processes on this data directory, opened on first use
+    private final Object listingTableLock = new Object();
+    private ListingTable listingTable;
+    private boolean listingTableUnavailable;
+
+    // Resident columnar copy of transactions.txt, loaded on first use
+    private TransactionStore transactionStore;
+
+    // Scheme -> date-sorted row offsets in transactions.txt, built on first use
+    private TransactionIndex transactionIndex;
+
+    // Per-scheme monthly price rollups, built on first use
+    private PriceTrends priceTrends;
+
+    // k-d tree comparable-sales index over the history, built on first use
+    private ComparableSales comparableSales;
+
+    // Append channel for transactions.txt, opened on first write
+    private GroupCommitWriter transactionWriter;
+
+    // Tells this handler about rows other programs add to the data files while it runs
+    private DataFileWatcher dataFileWatcher;
+
+    // Byte ranges of transactions.txt written by this process (start -> end), so the
+    // watcher does not add them a second time; dropped once the watcher has read past them
+    private final TreeMap<Long, Long> ownTransactionRanges = new TreeMap<>();
+
+    private final List<TransactionListener> transactionListeners = new CopyOnWriteArrayList<>();
+
+    // One read-write lock per data file; writers take it exclusively while they change
+    // the file. transactions.txt is append-only, so its readers hold the lock only while
+    // a scanner fixes the length it will read, and a long scan never stalls the writer.
+    // properties.csv is guarded by the property log's own lock.
+    private final ReentrantReadWriteLock userFileLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock transactionFileLock = new ReentrantReadWriteLock();
+
+    // Lengths of transactions.txt read when the price trends and the index were loaded;
+    // rows past them are added as they are written. (Callbacks for a batch can run out of
+    // offset order, so these stay fixed rather than following the newest recorded row.)
+    private long priceTrendsLength;
+    private long transactionIndexLength;
+
+    // Rows skipped while parsing, counted instead of printed one by one
+    private final RejectCounter propertyRejects = new RejectCounter("properties.csv");
+    private final RejectCounter transactionRejects = new RejectCounter("transactions.txt");
+
+    // Cached users keyed by username, reloaded only when users.txt changes on disk
+    private final UserDirectory userDirectory = new UserDirectory(Paths.get(USER_FILE_PATH), this::loadUsers);
+
+    // Password hashing with a work factor tunable through -Dhomefinder.pbkdf2.iterations
+    private final PasswordHasher passwordHasher = new PasswordHasher(
+            Integer.getInteger("homefinder.pbkdf2.iterations", 310_000),
+            Integer.getInteger("homefinder.loginCacheSize", 1024));
+
+    // Saves a user, hashing the password first unless it is already hashed
     public void saveUser(User user) {
+        if (!PasswordHasher.isHash(user.getPassword())) {
+            user = new User(user.getUsername(), passwordHasher.hash(user.getPassword()), user.getEmail(), user.getRole());
+        }
+        appendUser(user);
+    }
+
+    // Same as saveUser, but hashes on the password pool so the caller (e.g. the EDT) is not blocked
+    public CompletableFuture<Void> saveUserAsync(User user) {
+        return passwordHasher.submit(() -> {
+            saveUser(user);
+            return null;
+        });
+    }
+
+    private void appendUser(User user) {
+        userFileLock.writeLock().lock();
         try (BufferedWriter bw = new BufferedWriter(new FileWriter(USER_FILE_PATH, true))) {
             String line = String.join(",",
                     user.getUsername(),
@@ -44,7 +175,11 @@ public class FileHandler {
             bw.newLine();
         } catch (IOException e) {
             e.printStackTrace();
+            return;
+        } finally {
+            userFileLock.writeLock().unlock();
         }
+        userDirectory.added(user); // Outside the lock: the directory takes its own lock and then reads the file
     }
     
     // Method to load all users from file
@@ -52,6 +187,7 @@ public class FileHandler {
         List<User> users = new ArrayList<>();
         File file = new File(USER_FILE_PATH);
         if (file.exists()) {
+            userFileLock.readLock().lock();
             try (BufferedReader br = new BufferedReader(new FileReader(USER_FILE_PATH))) {
                 String line;
                 while ((line = br.readLine()) != null) {
@@ -71,6 +207,8 @@ public class FileHandler {
                 }
             } catch (IOException e) {
                 e.printStackTrace();
+            } finally {
+                userFileLock.readLock().unlock();
             }
         }
         return users;
@@ -78,25 +216,93 @@ public class FileHandler {
 
     // Method to authenticate user login
     public User authenticateUser(String username, String password) {
-        List<User> users = loadUsers();
-        System.out.println("Attempting to authenticate: " + username + " / " + password); // Debug
-
-        for (User user : users) {
-            // System.out.println("Checking user: " + user.getUsername() + " / " + user.getPassword()); // Debug
-            if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-              //  System.out.println("Authenticated: " + username); // Debug
-                return user;
+        User user = userDirectory.find(username);
+        // Unknown usernames are still run through the hasher so they take as long as wrong passwords
+        if (passwordHasher.verify(password, user != null ? user.getPassword() : null)) {
+            if (!PasswordHasher.isHash(user.getPassword())) {
+                upgradePassword(user, password);
             }
+            return user;
         }
-       // System.out.println("Authentication failed for: " + username); // Debug
         return null; // Return null if no match found
     }
 
+    // Replace a legacy plaintext password in users.txt with its hash once the user has
+    // proved they know it. The file is rewritten to a temp file and renamed into place.
+    private void upgradePassword(User user, String password) {
+        String hashed = String.join(",", user.getUsername(), passwordHasher.hash(password), user.getEmail(),
+                user.getRole().name());
+        Path file = Paths.get(USER_FILE_PATH).toAbsolutePath();
+        userFileLock.writeLock().lock();
+        try {
+            Path temp = Files.createTempFile(file.getParent(), "users.txt", ".tmp");
+            try {
+                try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()));
+                     BufferedWriter bw = new BufferedWriter(new FileWriter(temp.toFile()))) {
+                    String line;
+                    while ((line = br.readLine()) != null) {
+                        String[] details = line.split(",");
+                        boolean legacy = details.length == 4 && details[0].trim().equals(user.getUsername())
+                                && details[1].trim().equals(user.getPassword());
+                        bw.write(legacy ? hashed : line);
+                        bw.newLine();
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not store a hash of " + user.getUsername() + "'s password: " + e.getMessage());
+        } finally {
+            userFileLock.writeLock().unlock();
+        }
+    }
+
+    // Authenticates on the password pool; fails with RejectedExecutionException when too many logins are queued
+    public CompletableFuture<User> authenticateUserAsync(String username, String password) {
+        return passwordHasher.submit(() -> authenticateUser(username, password));
+    }
+
     // Private constructor to prevent instantiation
     private FileHandler() {
         // Optional: Initialize files if they don't exist
         initializeFile(FILE_PATH);
         initializeFile(TRANSACTION_FILE_PATH);
+        try {
+            propertyLog = new PropertyLog(Paths.get(FILE_PATH), this::readPropertiesFile, propertyRejects,
+                    Integer.getInteger("homefinder.walCompactThreshold", 1000),
+                    GroupCommitWriter.Durability.fromProperty("homefinder.durability", GroupCommitWriter.Durability.OS_BUFFERED));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the property log", e);
+        }
+        watchDataFiles();
+    }
+
+    // Follow both data files for rows appended by other programs (e.g. the ingest job).
+    // Set -Dhomefinder.watchFiles=false to read them only on demand.
+    private void watchDataFiles() {
+        if (!Boolean.parseBoolean(System.getProperty("homefinder.watchFiles", "true"))) {
+            return;
+        }
+        Path transactionFile = Paths.get(TRANSACTION_FILE_PATH).toAbsolutePath();
+        DataFileWatcher watcher = null;
+        try {
+            watcher = new DataFileWatcher(transactionFile.getParent(), WATCH_DEBOUNCE_MILLIS);
+            watcher.follow(transactionFile, this::transactionFileChanged);
+            watcher.follow(Paths.get(FILE_PATH), this::propertyFileChanged);
+            dataFileWatcher = watcher;
+        } catch (IOException e) {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException ignored) {
+                    // Already reporting the failure to open it
+                }
+            }
+            System.err.println("Not watching the data files; rows added by other programs show after a restart: "
+                    + e.getMessage());
+        }
     }
 
     // Static method to provide access to the single instance
@@ -111,72 +317,342 @@ public class FileHandler {
         return instance;
     }
 
-    // Read properties from the file
+    // Read the current listing: properties.csv plus any adds and sales still in the property log
     public List<Property> readProperties() {
+        List<Property> properties = propertyLog.read();
+        propertyRejects.report(); // Covers rows added through the log as well
+        return properties;
+    }
+
+    // Read the listing on the I/O executor
+    public CompletableFuture<List<Property>> readPropertiesAsync() {
+        return supplyAsync(LoadMonitor.NONE, this::readProperties);
+    }
+
+    // Read properties.csv alone, from the binary snapshot when it is up to date with the CSV
+    private List<Property> readPropertiesFile() {
+        Path source = Paths.get(FILE_PATH);
+        Path snapshot = Paths.get(PROPERTY_SNAPSHOT_PATH);
+        List<Property> properties = BinarySnapshot.readProperties(snapshot, source);
+        if (properties != null) {
+            return properties;
+        }
+
+        // Only a complete parse is saved as the snapshot, which later reads would trust
+        BasicFileAttributes version;
+        try {
+            version = BinarySnapshot.sourceVersion(source);
+            properties = parsePropertiesFile();
+        } catch (IOException e) {
+            System.err.println("Error reading properties from file: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        try {
+            BinarySnapshot.writeProperties(snapshot, version, properties);
+        } catch (IOException e) {
+            System.err.println("Could not write property snapshot: " + e.getMessage());
+        }
+        return properties;
+    }
+
+    // Parse properties.csv as text
+    private List<Property> parsePropertiesFile() throws IOException {
         List<Property> properties = new ArrayList<>();
+        IdSet derivedIds = new IdSet();
         try (BufferedReader br = new BufferedReader(new FileReader(FILE_PATH))) {
             String line;
             br.readLine(); // Skip the header
             while ((line = br.readLine()) != null) {
-                String[] details = line.split(","); // Assuming the data is comma-separated
+                Property property = parseProperty(line, derivedIds::add, propertyRejects);
+                if (property != null) {
+                    properties.add(property);
+                }
+            }
+        } finally {
+            propertyRejects.report();
+        }
+        return properties;
+    }
 
-                if (details.length < 9) {
-                    System.out.println("Skipping improperly formatted line: " + line);
-                    continue; // Skip this line
+    // Parse one line of properties.csv, or return null if it is malformed.
+    // Rows written before the Id column existed get an id derived from their columns;
+    // claimId takes an id and says whether it was free, so duplicate rows get distinct ids.
+    static Property parseProperty(String line, LongPredicate claimId, RejectCounter rejects) {
+        String[] details = line.split(","); // Assuming the data is comma-separated
+
+        if (details.length < 9) {
+            rejects.malformed(() -> line);
+            return null; // Skip this line
+        }
+
+        try {
+            int sizeSqM = Integer.parseInt(details[0].trim());
+            int sqFt = Integer.parseInt(details[1].trim());
+            String propertyType = details[2].trim();
+            int noOfFloors = Integer.parseInt(details[3].trim());
+            String address = details[4].trim();
+            String scheme = details[5].trim();
+            double price = Double.parseDouble(details[6].trim());
+            int year = Integer.parseInt(details[7].trim());
+            double pricePerSqft = Double.parseDouble(details[8].trim());
+            long id;
+            if (details.length == 10 && !details[9].trim().isEmpty()) { // Longer rows are legacy rows with stray commas
+                id = Long.parseLong(details[9].trim());
+            } else {
+                id = derivedId(sizeSqM, sqFt, propertyType, noOfFloors, address, scheme, price, year, pricePerSqft);
+                while (!claimId.test(id)) {
+                    id = nextDerivedId(id);
                 }
+            }
 
+            // Create Property using Builder
+            return new Property.Builder()
+                    .setId(id)
+                    .setSizeSqM(sizeSqM)
+                    .setSqFt(sqFt)
+                    .setPropertyType(propertyType)
+                    .setNoOfFloors(noOfFloors)
+                    .setAddress(address)
+                    .setScheme(scheme)
+                    .setPrice(price)
+                    .setYear(year)
+                    .setPricePerSqft(pricePerSqft)
+                    .build();
+        } catch (NumberFormatException e) {
+            rejects.unparseable(() -> line);
+            return null;
+        }
+    }
+
+    // Format a property as one line of properties.csv
+    static String formatProperty(Property property) {
+        return String.join(",",
+                String.valueOf(property.getSizeSqM()),
+                String.valueOf(property.getSqFt()),
+                property.getPropertyType(),
+                String.valueOf(property.getNoOfFloors()),
+                property.getAddress(),
+                property.getScheme(),
+                String.valueOf(property.getPrice()),
+                String.valueOf(property.getYear()),
+                String.valueOf(property.getPricePerSqft()),
+                String.valueOf(property.getId())
+        );
+    }
+
+    // Id for a row without one: a 64-bit FNV-1a hash of its parsed columns, so the same
+    // file gives the same ids on every read until a rewrite stores them, however the
+    // numbers in the row were spelled
+    private static long derivedId(int sizeSqM, int sqFt, String propertyType, int noOfFloors, String address,
+            String scheme, double price, int year, double pricePerSqft) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, sizeSqM);
+        hash = fnv(hash, sqFt);
+        hash = fnv(hash, propertyType);
+        hash = fnv(hash, noOfFloors);
+        hash = fnv(hash, address);
+        hash = fnv(hash, scheme);
+        hash = fnv(hash, Double.doubleToLongBits(price));
+        hash = fnv(hash, year);
+        hash = fnv(hash, Double.doubleToLongBits(pricePerSqft));
+        hash &= Long.MAX_VALUE;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long fnv(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return fnv(hash, value.length()); // Keeps "a","bc" apart from "ab","c"
+    }
+
+    // Next id in the sequence for duplicate rows (SplitMix64 finalizer)
+    static long nextDerivedId(long id) {
+        long z = id + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = (z ^ (z >>> 31)) & Long.MAX_VALUE;
+        return z == 0 ? 1 : z;
+    }
+
+    // Write a property to the listing (one append to the property log)
+    public void writeProperty(Property property) {
+        try {
+            writePropertyAsync(property).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    // Queue a property on the property log; the future completes once it is written
+    public CompletableFuture<Void> writePropertyAsync(Property property) {
+        return propertyLog.add(property).thenApplyAsync(offset -> {
+            ListingTable table = getListingTable();
+            if (table != null) {
                 try {
-                    int sizeSqM = Integer.parseInt(details[0].trim());
-                    int sqFt = Integer.parseInt(details[1].trim());
-                    String propertyType = details[2].trim();
-                    int noOfFloors = Integer.parseInt(details[3].trim());
-                    String address = details[4].trim();
-                    String scheme = details[5].trim();
-                    double price = Double.parseDouble(details[6].trim());
-                    int year = Integer.parseInt(details[7].trim());
-                    double pricePerSqft = Double.parseDouble(details[8].trim());
-
-                    // Create Property using Builder
-                    Property property = new Property.Builder()
-                            .setSizeSqM(sizeSqM)
-                            .setSqFt(sqFt)
-                            .setPropertyType(propertyType)
-                            .setNoOfFloors(noOfFloors)
-                            .setAddress(address)
-                            .setScheme(scheme)
-                            .setPrice(price)
-                            .setYear(year)
-                            .setPricePerSqft(pricePerSqft)
-                            .build();
-                    properties.add(property);
-                } catch (NumberFormatException e) {
-                    System.out.println("Error parsing line: " + line + ". Error: " + e.getMessage());
+                    table.add(property);
+                } catch (IOException e) {
+                    System.err.println("Could not publish the new listing to other processes: " + e.getMessage());
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            return null;
+        }, IO_EXECUTOR);
+    }
+
+    // Remove a sold property from the listing (one append to the property log)
+    public void removeProperty(Property property) {
+        try {
+            removePropertyAsync(property).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
         }
-        return properties;
     }
 
-    // Write a property to the file
-    public void writeProperty(Property property) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(FILE_PATH, true))) { // 'true' to enable append mode
-            String line = String.join(",",
-                    String.valueOf(property.getSizeSqM()),
-                    String.valueOf(property.getSqFt()),
-                    property.getPropertyType(),
-                    String.valueOf(property.getNoOfFloors()),
-                    property.getAddress(),
-                    property.getScheme(),
-                    String.valueOf(property.getPrice()),
-                    String.valueOf(property.getYear()),
-                    String.valueOf(property.getPricePerSqft())
-            );
-            bw.write(line);
-            bw.newLine();
+    public CompletableFuture<Void> removePropertyAsync(Property property) {
+        return propertyLog.remove(property).thenApplyAsync(offset -> {
+            ListingTable table = getListingTable();
+            if (table != null) {
+                try {
+                    table.remove(property.getId());
+                } catch (IOException e) {
+                    System.err.println("Could not publish the sale to other processes: " + e.getMessage());
+                }
+            }
+            return null;
+        }, IO_EXECUTOR);
+    }
+
+    // Sell a property: claim it with a compare-and-set on its listing state, then in the
+    // shared listing table against buyers in other processes, then record the transaction
+    // and take the property off the listing. A buyer who loses either race gets
+    // ALREADY_SOLD (or CHANGED) and nothing is written. If the transaction cannot be
+    // written the claims are released so the property can be bought again.
+    public CompletableFuture<ListingRegistry.PurchaseResult> purchasePropertyAsync(Property property, Transaction transaction) {
+        ListingRegistry.PurchaseResult result = listings.tryPurchase(property.getId(), property.getVersion());
+        if (result != ListingRegistry.PurchaseResult.PURCHASED) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return supplyAsync(LoadMonitor.NONE, () -> claimSharedListing(property)).thenCompose(shared -> {
+            if (shared != ListingRegistry.PurchaseResult.PURCHASED) {
+                if (shared == ListingRegistry.PurchaseResult.CHANGED) {
+                    listings.release(property.getId(), property.getVersion());
+                }
+                return CompletableFuture.completedFuture(shared);
+            }
+            return writeTransactionAsync(transaction)
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            listings.release(property.getId(), property.getVersion());
+                            releaseSharedListing(property);
+                        }
+                    })
+                    .thenCompose(ignored -> removePropertyAsync(property))
+                    .thenApply(ignored -> shared);
+        });
+    }
+
+    // Without the shared table only buyers in this process are kept apart
+    private ListingRegistry.PurchaseResult claimSharedListing(Property property) {
+        ListingTable table = getListingTable();
+        if (table != null) {
+            try {
+                return table.tryPurchase(property.getId(), property.getVersion());
+            } catch (IOException e) {
+                System.err.println("Could not claim the listing in the shared table: " + e.getMessage());
+            }
+        }
+        return ListingRegistry.PurchaseResult.PURCHASED;
+    }
+
+    private void releaseSharedListing(Property property) {
+        ListingTable table = getListingTable();
+        if (table != null) {
+            try {
+                table.release(property.getId(), property.getVersion());
+            } catch (IOException e) {
+                System.err.println("Could not release the listing in the shared table: " + e.getMessage());
+            }
+        }
+    }
+
+    // Sequence number of the shared listing, which moves whenever any process lists or
+    // sells a property; stays 0 if the shared table could not be opened
+    public long getListingSequence() {
+        ListingTable table = getListingTable();
+        return table == null ? 0 : table.getSequence();
+    }
+
+    // Open the shared table (rebuilding it if this is the only process) on the I/O executor
+    public CompletableFuture<Long> getListingSequenceAsync() {
+        return supplyAsync(LoadMonitor.NONE, this::getListingSequence);
+    }
+
+    // Listings added and sold by any process since the given sequence
+    public CompletableFuture<ListingTable.Changes> getListingChangesAsync(long since) {
+        return supplyAsync(LoadMonitor.NONE, () -> {
+            ListingTable table = getListingTable();
+            if (table == null) {
+                throw new IllegalStateException("The shared listing table is not open");
+            }
+            try {
+                return table.changesSince(since);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private ListingTable getListingTable() {
+        synchronized (listingTableLock) {
+            if (listingTable == null && !listingTableUnavailable) {
+                try {
+                    listingTable = ListingTable.open(Paths.get(LISTING_TABLE_PATH), this::readProperties);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Shared listing table unavailable; changes made by other processes will not show: " + e.getMessage());
+                    listingTableUnavailable = true;
+                }
+            }
+            return listingTable;
+        }
+    }
+
+    // Rows appended to properties.csv by another program go into the shared listing
+    // table, which every process (this one included) polls for new listings. The CSV
+    // having been rewritten (a compaction here or elsewhere, or an external edit) is
+    // reconciled with the table instead, which changes nothing if the listing is the same.
+    private void propertyFileChanged(DataFileWatcher.Delta delta) {
+        ListingTable table = getListingTable();
+        if (table == null) {
+            return;
+        }
+        try {
+            if (delta.isReset()) {
+                long asOf = table.getSequence();
+                table.reconcile(readProperties(), asOf);
+                return;
+            }
+            // Ids are derived without checking for repeats: a row identical to one already
+            // listed keeps the id of the first, and shows up as its own listing on the next full read
+            List<Property> added = new ArrayList<>();
+            for (String line : delta.getLines()) {
+                Property property = parseProperty(line, id -> true, propertyRejects);
+                if (property != null) {
+                    added.add(property);
+                }
+            }
+            propertyRejects.report();
+            if (!added.isEmpty()) {
+                table.addAll(added);
+            }
         } catch (IOException e) {
-            e.printStackTrace();
+            System.err.println("Could not publish the changes to properties.csv: " + e.getMessage());
         }
     }
 
@@ -187,7 +663,7 @@ public class FileHandler {
             try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
                 if (filePath.equals(FILE_PATH)) {
                     // Writing header for properties file
-                    bw.write("SizeSqM,SqFt,PropertyType,NoOfFloors,Address,Scheme,Price,Year,PricePerSqft");
+                    bw.write(PROPERTY_HEADER);
                 } else if (filePath.equals(TRANSACTION_FILE_PATH)) {
                     // Writing header for transactions file
                     bw.write("Date\tSizeSqM\tSizeSqFt\tPropertyType\tNoOfFloors\tAddress\tScheme\tPrice\tYear\tProjectName\tPricePerSqft");
@@ -201,45 +677,75 @@ public class FileHandler {
 
     // Read transactions from the file
     public List<Transaction> loadTransactions() {
-        List<Transaction> transactions = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(TRANSACTION_FILE_PATH))) {
-            skipHeader(reader);
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Transaction transaction = parseTransaction(line);
-                if (transaction != null) {
-                    transactions.add(transaction);
-                }
-            }
+        // The store is already sorted by date, keeping file order for equal dates
+        TransactionStore store = loadTransactionStore();
+        List<Transaction> transactions = new ArrayList<>(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            transactions.add(store.get(row));
+        }
+        return transactions;
+    }
+
+    // Stream transactions straight out of a memory-mapped view of the file.
+    // The filter sees each raw row before any Transaction is built, so callers can
+    // skip rows cheaply (e.g. scanner.fieldEqualsIgnoreCase(TransactionScanner.SCHEME, name)).
+    // The stream must be closed to release the file.
+    public Stream<Transaction> streamTransactions(Predicate<TransactionScanner> filter) {
+        TransactionScanner scanner;
+        try {
+            scanner = openTransactionScanner(-1);
         } catch (IOException e) {
             System.err.println("Error reading transactions from file: " + e.getMessage());
+            return Stream.empty();
         }
 
-        // Sort transactions by date
-        transactions.sort(Comparator.comparing(Transaction::getTransactionDate, Comparator.nullsLast(Comparator.naturalOrder())));
-        return transactions;
+        Spliterator<Transaction> spliterator = new Spliterators.AbstractSpliterator<Transaction>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaction> action) {
+                try {
+                    while (scanner.next()) {
+                        if (filter != null && !filter.test(scanner)) {
+                            continue;
+                        }
+                        Transaction transaction = parseTransaction(scanner);
+                        if (transaction != null) {
+                            action.accept(transaction);
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            transactionRejects.report();
+            try {
+                scanner.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
     }
 
     private LocalDate parseTransactionDate(String dateStr) {
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDate.parse(dateStr, formatter);
-            } catch (DateTimeParseException e) {
-                // Continue trying the next format
-            }
-        }
-        throw new DateTimeParseException("Date format is invalid: " + dateStr, dateStr, 0);
+        return LocalDate.ofEpochDay(DateParser.parseEpochDay(dateStr));
     }
 
-    private Transaction parseTransaction(String line) {
+    // Parse a single tab-separated line of transactions.txt, or return null if it is malformed
+    public Transaction parseTransaction(String line) {
         try {
             String[] fields = line.split("\t");
             if (fields.length < 10) {
-                System.err.println("Skipping improperly formatted transaction line: " + line);
+                transactionRejects.malformed(() -> line);
                 return null;
             }
 
             String dateStr = fields[0].trim();
+            String propertyType = fields[3].trim();
+            int noOfFloors = parseIntOrZero(fields[4]);
             String address = fields[5].trim();
             int sizeSqFt = Integer.parseInt(fields[2].trim());
             String projectName = fields[6].trim();
@@ -254,77 +760,668 @@ public class FileHandler {
                     .setTransactionPrice(price)
                     .setTransactionSqFt(sizeSqFt)
                     .setSizeSqM(0) // Set this to an appropriate value if needed
-                    .setPropertyType("") // Set to an appropriate value if needed
-                    .setNoOfFloors(0) // Set to an appropriate value if needed
+                    .setPropertyType(propertyType)
+                    .setNoOfFloors(noOfFloors)
                     .setAddress(address)
                     .setScheme("") // Set to an appropriate value if needed
-                    .setYear(0) // Set to an appropriate value if needed
+                    .setYear(parseIntOrZero(fields[8]))
                     .setPricePerSqft(0.0) // Set to an appropriate value if needed
                     .build();
 
-        } catch (NumberFormatException e) {
-            System.err.println("Error parsing transaction from line: " + line + " - " + e.getMessage());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            transactionRejects.unparseable(() -> line);
             return null;
         }
     }
 
-    // Helper method to skip the header line in a file
-    private void skipHeader(BufferedReader reader) throws IOException {
-        reader.readLine(); // Skip the header
+    // Optional numeric columns such as floors and year are 0 when blank or malformed
+    private static int parseIntOrZero(String field) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Get the resident transaction store, loading it from the file on first use
+    public TransactionStore getTransactionStore() {
+        return getTransactionStore(LoadMonitor.NONE);
     }
 
-    // Write a transaction to the file
+    // As above, reporting load progress and stopping with CancellationException if cancelled
+    public synchronized TransactionStore getTransactionStore(LoadMonitor monitor) {
+        if (transactionStore == null) {
+            transactionStore = loadTransactionStore(monitor);
+        }
+        transactionStore.sortByDate();
+        return transactionStore;
+    }
+
+    // Load transactions as columns sorted by date, from the binary snapshot when it is
+    // up to date with the text file
+    public TransactionStore loadTransactionStore() {
+        return loadTransactionStore(LoadMonitor.NONE);
+    }
+
+    public TransactionStore loadTransactionStore(LoadMonitor monitor) {
+        Path source = Paths.get(TRANSACTION_FILE_PATH);
+        Path snapshot = Paths.get(TRANSACTION_SNAPSHOT_PATH);
+        monitor.begin(1);
+        TransactionStore store;
+        transactionFileLock.readLock().lock(); // The snapshot must match the file's length as read
+        try {
+            store = BinarySnapshot.readTransactions(snapshot, source);
+            if (store != null) {
+                store.setSourceLength(source.toFile().length());
+            }
+        } finally {
+            transactionFileLock.readLock().unlock();
+        }
+        if (store != null) {
+            monitor.advance(1);
+            return store;
+        }
+
+        // Only a complete parse is saved as the snapshot, which later loads would trust
+        BasicFileAttributes version;
+        try {
+            version = BinarySnapshot.sourceVersion(source);
+            store = parseTransactionStore(monitor);
+        } catch (IOException e) {
+            System.err.println("Error reading transactions from file: " + e.getMessage());
+            return new TransactionStore();
+        }
+        try {
+            BinarySnapshot.writeTransactions(snapshot, version, store, PriceTrends.fromStore(store));
+        } catch (IOException e) {
+            System.err.println("Could not write transaction snapshot: " + e.getMessage());
+        }
+        return store;
+    }
+
+    // Parse transactions.txt straight into columns without building Transaction objects.
+    // Large files are split at line boundaries and the chunks parsed on the fork/join
+    // pool; the date-sorted chunks are then k-way merged, giving the same rows in the
+    // same order as a single sequential pass.
+    private TransactionStore parseTransactionStore(LoadMonitor monitor) throws IOException {
+        TransactionStore store = new TransactionStore();
+        try {
+            long[] bounds = transactionChunkBounds();
+            monitor.begin(bounds[bounds.length - 1] - bounds[0]);
+            if (bounds.length == 2) {
+                parseTransactionChunk(bounds[0], bounds[1], store, monitor);
+            } else {
+                List<ForkJoinTask<TransactionStore>> chunks = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    chunks.add(ForkJoinPool.commonPool().submit(() -> {
+                        TransactionStore chunk = new TransactionStore();
+                        try {
+                            parseTransactionChunk(start, end, chunk, monitor);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return chunk;
+                    }));
+                }
+                List<TransactionStore> parts = new ArrayList<>();
+                for (ForkJoinTask<TransactionStore> chunk : chunks) {
+                    parts.add(chunk.join());
+                }
+                store = TransactionStore.mergeSorted(parts);
+            }
+            store.setSourceLength(bounds[bounds.length - 1]);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // From a chunk
+        } finally {
+            transactionRejects.report();
+        }
+        store.sortByDate();
+        return store;
+    }
+
+    // Byte offsets splitting the rows after the header into chunks; each bound is the
+    // start of a line (or the end of the file), so no row straddles two chunks
+    private long[] transactionChunkBounds() throws IOException {
+        try (TransactionScanner scanner = openTransactionScanner(-1)) {
+            long start = scanner.nextRowOffset();
+            long size = scanner.fileSize();
+            int chunks = transactionChunkCount(size - start);
+            long[] bounds = new long[chunks + 1];
+            bounds[0] = start;
+            bounds[chunks] = size;
+            for (int i = 1; i < chunks; i++) {
+                // Step back one byte so a target that already starts a line keeps that line
+                scanner.seek(start + (size - start) * i / chunks - 1);
+                long bound = scanner.next() ? scanner.nextRowOffset() : size;
+                bounds[i] = Math.max(bounds[i - 1], bound);
+            }
+            return bounds;
+        }
+    }
+
+    private static int transactionChunkCount(long bytes) {
+        Integer forced = Integer.getInteger("homefinder.loadChunks");
+        if (forced != null) {
+            return Math.max(1, forced);
+        }
+        if (bytes < PARALLEL_LOAD_MIN_BYTES) {
+            return 1;
+        }
+        long byParallelism = ForkJoinPool.getCommonPoolParallelism();
+        return (int) Math.max(1, Math.min(byParallelism, bytes / MIN_CHUNK_BYTES));
+    }
+
+    // Parse the rows starting in [start, end) into the store, unsorted
+    private void parseTransactionChunk(long start, long end, TransactionStore store,
+            LoadMonitor monitor) throws IOException {
+        long reported = start;
+        int rows = 0;
+        try (TransactionScanner scanner = openTransactionScanner(start)) {
+            while (scanner.next() && scanner.rowOffset() < end) {
+                if (++rows % PROGRESS_INTERVAL == 0) {
+                    monitor.checkCancelled();
+                    monitor.advance(scanner.rowOffset() - reported);
+                    reported = scanner.rowOffset();
+                }
+                if (!scanner.isWellFormed()) {
+                    transactionRejects.malformed(scanner::line);
+                    continue;
+                }
+                try {
+                    int epochDay = scanner.dateField(TransactionScanner.DATE);
+                    store.add(epochDay,
+                            scanner.doubleField(TransactionScanner.PRICE),
+                            scanner.intField(TransactionScanner.SQFT),
+                            scanner.field(TransactionScanner.SCHEME),
+                            scanner.field(TransactionScanner.ADDRESS),
+                            scanner.field(TransactionScanner.PROPERTY_TYPE),
+                            scanner.intField(TransactionScanner.NO_OF_FLOORS, 0),
+                            scanner.intField(TransactionScanner.YEAR, 0));
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    transactionRejects.unparseable(scanner::line);
+                }
+            }
+        }
+        monitor.advance(end - reported);
+    }
+
+    // Get the monthly price rollups: from the snapshot when transactions.txt is unchanged
+    // since it was written, otherwise computed from the resident store. After that each
+    // written transaction is folded in as it is committed.
+    public PriceTrends getPriceTrends() {
+        return getPriceTrends(LoadMonitor.NONE);
+    }
+
+    public synchronized PriceTrends getPriceTrends(LoadMonitor monitor) {
+        if (priceTrends == null) {
+            Path source = Paths.get(TRANSACTION_FILE_PATH);
+            transactionFileLock.readLock().lock();
+            try {
+                priceTrends = BinarySnapshot.readPriceTrends(Paths.get(TRANSACTION_SNAPSHOT_PATH), source);
+                priceTrendsLength = source.toFile().length();
+            } finally {
+                transactionFileLock.readLock().unlock();
+            }
+        }
+        if (priceTrends == null) {
+            TransactionStore store = getTransactionStore(monitor);
+            priceTrends = PriceTrends.fromStore(store);
+            priceTrendsLength = store.getSourceLength();
+        }
+        return priceTrends;
+    }
+
+    // Monthly statistics for a project, oldest month first
+    public List<MonthlyTrend> getMonthlyTrends(String projectName) {
+        return getPriceTrends().getMonthlyTrends(projectName);
+    }
+
+    // Build the monthly statistics on the I/O executor; the first call may have to load the whole history
+    public CompletableFuture<List<MonthlyTrend>> getMonthlyTrendsAsync(String projectName, LoadMonitor monitor) {
+        return supplyAsync(monitor, () -> getPriceTrends(monitor).getMonthlyTrends(projectName));
+    }
+
+    // Price quantiles over every sale of a project, or null if it has none
+    public MonthlyTrend getSchemeTrend(String projectName) {
+        return getPriceTrends().getSchemeTrend(projectName);
+    }
+
+    public CompletableFuture<MonthlyTrend> getSchemeTrendAsync(String projectName, LoadMonitor monitor) {
+        return supplyAsync(monitor, () -> getPriceTrends(monitor).getSchemeTrend(projectName));
+    }
+
+    // Get the comparable-sales index, building it from the resident store on first use
+    public ComparableSales getComparableSales() {
+        return getComparableSales(LoadMonitor.NONE);
+    }
+
+    public synchronized ComparableSales getComparableSales(LoadMonitor monitor) {
+        if (comparableSales == null) {
+            comparableSales = ComparableSales.fromStore(getTransactionStore(monitor));
+        }
+        return comparableSales;
+    }
+
+    // Suggest a price for a property sold today from its nearest historical sales of the
+    // same type, or return null if there is nothing to compare with. noOfFloors and year
+    // are 0 when unknown.
+    public Valuation suggestPrice(String scheme, String propertyType, int sqFt, int noOfFloors, int year) {
+        return suggestPrice(scheme, propertyType, sqFt, noOfFloors, year, LoadMonitor.NONE);
+    }
+
+    public CompletableFuture<Valuation> suggestPriceAsync(String scheme, String propertyType, int sqFt,
+            int noOfFloors, int year, LoadMonitor monitor) {
+        return supplyAsync(monitor, () -> suggestPrice(scheme, propertyType, sqFt, noOfFloors, year, monitor));
+    }
+
+    private Valuation suggestPrice(String scheme, String propertyType, int sqFt, int noOfFloors, int year,
+            LoadMonitor monitor) {
+        return getComparableSales(monitor).estimate(scheme, propertyType, sqFt, noOfFloors, year,
+                (int) LocalDate.now().toEpochDay(), ComparableSales.DEFAULT_NEIGHBOURS);
+    }
+
+    // Get the newest transactions for a project, newest first, using the scheme index
+    public List<Transaction> getRecentTransactions(String projectName, int limit) {
+        return getRecentTransactions(projectName, limit, LoadMonitor.NONE);
+    }
+
+    public CompletableFuture<List<Transaction>> getRecentTransactionsAsync(String projectName, int limit,
+            LoadMonitor monitor) {
+        return supplyAsync(monitor, () -> getRecentTransactions(projectName, limit, monitor));
+    }
+
+    private List<Transaction> getRecentTransactions(String projectName, int limit, LoadMonitor monitor) {
+        long[] offsets;
+        synchronized (this) {
+            offsets = getTransactionIndex(monitor).latestOffsets(projectName, limit);
+        }
+        return readTransactionsAt(offsets);
+    }
+
+    // Get the transactions dated within [from, to], oldest first, using the month buckets of the index
+    public List<Transaction> getTransactionsBetween(LocalDate from, LocalDate to) {
+        long[] offsets;
+        synchronized (this) {
+            offsets = getTransactionIndex(LoadMonitor.NONE).offsetsBetween(from, to);
+        }
+        return readTransactionsAt(offsets);
+    }
+
+    // Parse the rows starting at the given byte offsets, in the given order
+    private List<Transaction> readTransactionsAt(long[] offsets) {
+        List<Transaction> transactions = new ArrayList<>();
+        if (offsets.length == 0) {
+            return transactions;
+        }
+        try (TransactionScanner scanner = openTransactionScanner(0)) {
+            for (long offset : offsets) {
+                scanner.seek(offset);
+                if (scanner.next()) {
+                    Transaction transaction = parseTransaction(scanner);
+                    if (transaction != null) {
+                        transactions.add(transaction);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading transactions from file: " + e.getMessage());
+        }
+        transactionRejects.report();
+        return transactions;
+    }
+
+    // Load the saved index, indexing only rows appended since it was written.
+    // Falls back to a full scan when there is no usable index or the file was rewritten.
+    private TransactionIndex getTransactionIndex(LoadMonitor monitor) {
+        if (transactionIndex != null) {
+            return transactionIndex;
+        }
+        Path dataFile = Paths.get(TRANSACTION_FILE_PATH);
+        Path indexFile = Paths.get(TRANSACTION_INDEX_PATH);
+        try {
+            TransactionIndex index = TransactionIndex.load(indexFile);
+            long startOffset = -1;
+            if (index != null && index.matches(dataFile)) {
+                startOffset = index.getIndexedLength();
+            } else {
+                index = new TransactionIndex();
+            }
+
+            int rowsBefore = index.getRowCount();
+            try (TransactionScanner scanner = openTransactionScanner(startOffset)) {
+                monitor.begin(scanner.fileSize() - Math.max(0, startOffset));
+                indexRows(scanner, index, monitor);
+                index.setIndexedLength(scanner.fileSize());
+                transactionIndexLength = scanner.fileSize();
+            }
+            transactionIndex = index;
+            if (startOffset < 0 || index.getRowCount() != rowsBefore) {
+                saveTransactionIndex(index, indexFile, dataFile);
+            }
+        } catch (IOException e) {
+            System.err.println("Error indexing transactions: " + e.getMessage());
+            transactionIndex = new TransactionIndex();
+            transactionIndexLength = 0;
+        }
+        return transactionIndex;
+    }
+
+    // The index in memory is complete either way; without the sidecar the next start indexes from scratch
+    private static void saveTransactionIndex(TransactionIndex index, Path indexFile, Path dataFile) {
+        try {
+            index.save(indexFile, dataFile);
+        } catch (IOException e) {
+            System.err.println("Could not save the transaction index: " + e.getMessage());
+        }
+    }
+
+    // Index the remaining rows of the scanner, skipping rows parseTransaction would reject
+    private void indexRows(TransactionScanner scanner, TransactionIndex index, LoadMonitor monitor) throws IOException {
+        long reported = scanner.nextRowOffset();
+        int rows = 0;
+        while (scanner.next()) {
+            if (++rows % PROGRESS_INTERVAL == 0) {
+                monitor.checkCancelled();
+                monitor.advance(scanner.rowOffset() - reported);
+                reported = scanner.rowOffset();
+            }
+            if (!scanner.isWellFormed()) {
+                continue;
+            }
+            try {
+                scanner.intField(TransactionScanner.SQFT);
+                scanner.doubleField(TransactionScanner.PRICE);
+                int epochDay = scanner.dateField(TransactionScanner.DATE);
+                index.add(scanner.field(TransactionScanner.SCHEME), epochDay, scanner.rowOffset());
+            } catch (NumberFormatException | DateTimeParseException e) {
+                // Rejected rows are reported when they are loaded
+            }
+        }
+        monitor.advance(scanner.nextRowOffset() - reported);
+    }
+
+    // Open a scanner on transactions.txt at startOffset (after the header if negative).
+    // The scanner reads only up to the length the file had when it opened, and the
+    // writer cannot be mid-batch then, so it never sees a torn last row.
+    private TransactionScanner openTransactionScanner(long startOffset) throws IOException {
+        transactionFileLock.readLock().lock();
+        try {
+            return new TransactionScanner(Paths.get(TRANSACTION_FILE_PATH), startOffset);
+        } finally {
+            transactionFileLock.readLock().unlock();
+        }
+    }
+
+    // Parse the scanner's current row without splitting it into a String[]
+    private Transaction parseTransaction(TransactionScanner scanner) {
+        if (!scanner.isWellFormed()) {
+            transactionRejects.malformed(scanner::line);
+            return null;
+        }
+        try {
+            LocalDate transactionDate = LocalDate.ofEpochDay(scanner.dateField(TransactionScanner.DATE));
+            return scanner.toTransaction(transactionDate);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            transactionRejects.unparseable(scanner::line);
+            return null;
+        }
+    }
+
+    // Write a transaction to the file, waiting until it is committed
     public void writeTransaction(Transaction transaction) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(TRANSACTION_FILE_PATH, true))) {
-            String line = String.join("\t",
-                    transaction.getTransactionDate(),
-                    String.valueOf(transaction.getSizeSqM()),
-                    String.valueOf(transaction.getTransactionSqFt()),
-                    transaction.getPropertyType(),
-                    String.valueOf(transaction.getNoOfFloors()),
-                    transaction.getAddress(),
-                    transaction.getScheme(),
-                    String.valueOf(transaction.getTransactionPrice()),
-                    String.valueOf(transaction.getYear()),
-                    transaction.getProjectName(),
-                    String.valueOf(transaction.getPricePerSqft())
-            );
-            bw.write(line);
-            bw.newLine();
+        try {
+            writeTransactionAsync(transaction).join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+        }
+    }
+
+    // Queue a transaction on the group-commit writer. The future completes once the
+    // row is written (and forced, depending on homefinder.durability) and indexed.
+    public CompletableFuture<Void> writeTransactionAsync(Transaction transaction) {
+        String line = String.join("\t",
+                transaction.getTransactionDate(),
+                String.valueOf(transaction.getSizeSqM()),
+                String.valueOf(transaction.getTransactionSqFt()),
+                transaction.getPropertyType(),
+                String.valueOf(transaction.getNoOfFloors()),
+                transaction.getAddress(),
+                transaction.getScheme(),
+                String.valueOf(transaction.getTransactionPrice()),
+                String.valueOf(transaction.getYear()),
+                transaction.getProjectName(),
+                String.valueOf(transaction.getPricePerSqft())
+        );
+        GroupCommitWriter writer;
+        try {
+            writer = getTransactionWriter();
         } catch (IOException e) {
-            e.printStackTrace();
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
         }
+        int lineLength = (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8).length;
+        // Recorded on the I/O executor: the append completes on the committer thread, which
+        // must not wait for this handler's monitor while a load holds it
+        return writer.append(line).thenAcceptAsync(
+                offset -> recordTransaction(transaction, transaction.getScheme(), offset, lineLength), IO_EXECUTOR);
     }
 
-    // Update the properties file with the given list of properties
-    public void updatePropertiesFile(List<Property> properties) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(FILE_PATH))) {
-            // Write the header first
-            bw.write("SizeSqM,SqFt,PropertyType,NoOfFloors,Address,Scheme,Price,Year,PricePerSqft");
-            bw.newLine();
+    // Keep the resident store and index in step with the file. A structure loaded after
+    // the row was written but before this ran has already read it, so it is skipped there.
+    private synchronized void recordTransaction(Transaction transaction, String scheme, long offset, int lineLength) {
+        int epochDay = (int) LocalDate.parse(transaction.getTransactionDate()).toEpochDay();
+        if (transactionStore != null && offset >= transactionStore.getSourceLength()) {
+            transactionStore.add(epochDay,
+                    transaction.getTransactionPrice(),
+                    transaction.getTransactionSqFt(),
+                    scheme,
+                    transaction.getAddress(),
+                    transaction.getPropertyType(),
+                    transaction.getNoOfFloors(),
+                    transaction.getYear());
+            // Built from the store, so it holds the same rows
+            if (comparableSales != null) {
+                comparableSales.add(scheme, transaction.getPropertyType(), epochDay, transaction.getTransactionPrice(),
+                        transaction.getTransactionSqFt(), transaction.getNoOfFloors(), transaction.getYear());
+            }
+        }
+        if (priceTrends != null && offset >= priceTrendsLength) {
+            priceTrends.add(scheme, epochDay, transaction.getTransactionPrice(),
+                    transaction.getTransactionSqFt());
+        }
+        if (transactionIndex != null && offset >= transactionIndexLength) {
+            transactionIndex.add(scheme, epochDay, offset);
+            transactionIndex.setIndexedLength(Math.max(transactionIndex.getIndexedLength(), offset + lineLength));
+        }
+    }
 
-            // Write each property
-            for (Property property : properties) {
-                String line = String.join(",",
-                        String.valueOf(property.getSizeSqM()),
-                        String.valueOf(property.getSqFt()),
-                        property.getPropertyType(),
-                        String.valueOf(property.getNoOfFloors()),
-                        property.getAddress(),
-                        property.getScheme(),
-                        String.valueOf(property.getPrice()),
-                        String.valueOf(property.getYear()),
-                        String.valueOf(property.getPricePerSqft())
-                );
-                bw.write(line);
-                bw.newLine();
+    // Rows another program appended to transactions.txt are added to whatever is loaded,
+    // as rows written here are; rows this process wrote are skipped. A rewritten file
+    // drops everything derived from it, to be reloaded on next use.
+    private void transactionFileChanged(DataFileWatcher.Delta delta) {
+        if (delta.isReset()) {
+            synchronized (this) {
+                transactionStore = null;
+                priceTrends = null;
+                comparableSales = null;
+                transactionIndex = null;
+            }
+            synchronized (ownTransactionRanges) {
+                ownTransactionRanges.clear();
+            }
+            notifyTransactionListeners(List.of());
+            return;
+        }
+
+        List<Transaction> appended = new ArrayList<>();
+        List<Integer> lines = new ArrayList<>();
+        // A batch of ours whose bytes the watcher read has registered its range once the
+        // lock can be had. Rows are recorded after it is released: recordTransaction
+        // needs this handler's monitor, which loaders hold while they wait for the lock.
+        transactionFileLock.readLock().lock();
+        try {
+            synchronized (ownTransactionRanges) {
+                for (int i = 0; i < delta.getLines().size(); i++) {
+                    Map.Entry<Long, Long> own = ownTransactionRanges.floorEntry(delta.getOffset(i));
+                    if (own == null || own.getValue() <= delta.getOffset(i)) {
+                        lines.add(i);
+                    }
+                }
+                ownTransactionRanges.headMap(delta.getEnd()).values().removeIf(end -> end <= delta.getEnd());
+            }
+        } finally {
+            transactionFileLock.readLock().unlock();
+        }
+        for (int i : lines) {
+            Transaction transaction = parseTransaction(delta.getLines().get(i));
+            if (transaction != null) {
+                // A parsed row carries the file's scheme column as its project name
+                recordTransaction(transaction, transaction.getProjectName(), delta.getOffset(i), delta.getLength(i));
+                appended.add(transaction);
+            }
+        }
+        transactionRejects.report();
+        if (!appended.isEmpty()) {
+            notifyTransactionListeners(appended);
+        }
+    }
+
+    public void addTransactionListener(TransactionListener listener) {
+        transactionListeners.add(listener);
+    }
+
+    public void removeTransactionListener(TransactionListener listener) {
+        transactionListeners.remove(listener);
+    }
+
+    private void notifyTransactionListeners(List<Transaction> appended) {
+        for (TransactionListener listener : transactionListeners) {
+            listener.transactionsChanged(appended);
+        }
+    }
+
+    // Open the long-lived append channel for transactions.txt on first use
+    private synchronized GroupCommitWriter getTransactionWriter() throws IOException {
+        if (transactionWriter == null) {
+            transactionWriter = new GroupCommitWriter(Paths.get(TRANSACTION_FILE_PATH),
+                    GroupCommitWriter.Durability.fromProperty("homefinder.durability", GroupCommitWriter.Durability.OS_BUFFERED),
+                    GroupCommitWriter.CommitGuard.of(transactionFileLock.writeLock()), this::transactionsCommitted);
+            GroupCommitWriter writer = transactionWriter;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        }
+        return transactionWriter;
+    }
+
+    // Called by the writer with the lock held, before the watcher can look at the bytes
+    private void transactionsCommitted(long start, long end) {
+        if (dataFileWatcher != null) {
+            synchronized (ownTransactionRanges) {
+                ownTransactionRanges.put(start, end);
+            }
+        }
+    }
+
+    // Replace the listing with the given list of properties.
+    // The new CSV is written to a temp file and renamed into place, and the property log is cleared.
+    public void updatePropertiesFile(List<Property> properties) {
+        try {
+            propertyLog.rewrite(properties);
+            ListingTable table = getListingTable();
+            if (table != null) {
+                table.rebuild(properties);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    // Counts of rows skipped while parsing each file
+    public RejectCounter getPropertyRejects() {
+        return propertyRejects;
+    }
+
+    public RejectCounter getTransactionRejects() {
+        return transactionRejects;
+    }
+
     public String getFilePath() {
         return FILE_PATH;
     }
+
+    public String getTransactionFilePath() {
+        return TRANSACTION_FILE_PATH;
+    }
+
+    // Run a call on the I/O executor. Cancelling the returned future also cancels the
+    // monitor, so a load in progress stops at its next check instead of running to the end.
+    private static <T> CompletableFuture<T> supplyAsync(LoadMonitor monitor, Supplier<T> call) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(call, IO_EXECUTOR);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                monitor.cancel();
+            }
+        });
+        return future;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively so the
+    // code still compiles and runs on JDKs that predate virtual threads
+    private static ExecutorService createIoExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "file-io-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Open-addressing set of ids, so a large legacy listing does not box one Long per row
+    private static class IdSet {
+        private long[] slots = new long[1024]; // 0 marks an empty slot; ids are never 0
+        private int size;
+
+        boolean add(long id) {
+            int mask = slots.length - 1;
+            int i = (int) (id ^ (id >>> 32)) * 0x9e3779b9 & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            slots[i] = id;
+            if (++size * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            size = 0;
+            for (long id : old) {
+                if (id != 0) {
+                    add(id);
+                }
+            }
+        }
+    }
+
+    private static String dataFile(String name) {
+        return Paths.get(DATA_DIR).resolve(name).toString();
+    }
 }
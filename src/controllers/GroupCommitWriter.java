@@ -0,0 +1,263 @@
+package controllers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Appends lines to a file through one long-lived channel.
+// Callers queue lines and get a future; a background thread takes everything
+// queued so far, writes it with a single call and, depending on the durability
+// mode, forces it to disk before completing the futures. A burst of appends
+// therefore costs one write (and at most one fsync) instead of an open/close per line.
+// If the file is renamed away or replaced (by this or another process), the next batch
+// reopens the path, so lines always land in the file the name currently refers to.
+public class GroupCommitWriter implements Closeable {
+
+    public enum Durability {
+        FSYNC_EACH,   // force after every line; each future completes once its line is on disk
+        FSYNC_BATCH,  // force once per batch
+        OS_BUFFERED;  // hand the bytes to the OS and do not force
+
+        // Read a mode from a system property, falling back to the default
+        public static Durability fromProperty(String property, Durability defaultMode) {
+            String value = System.getProperty(property);
+            if (value == null || value.isEmpty()) {
+                return defaultMode;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown durability mode " + value + ", using " + defaultMode);
+                return defaultMode;
+            }
+        }
+    }
+
+    // Held while a batch is written, so readers never see half of it; may also exclude
+    // other processes, which is why acquiring can fail
+    public interface CommitGuard {
+        void acquire() throws IOException;
+
+        void release();
+
+        // A guard that only takes a lock of this JVM
+        static CommitGuard of(Lock lock) {
+            return new CommitGuard() {
+                @Override
+                public void acquire() {
+                    lock.lock();
+                }
+
+                @Override
+                public void release() {
+                    lock.unlock();
+                }
+            };
+        }
+    }
+
+    // Told the byte range of each write while the commit guard is still held
+    public interface CommitListener {
+        CommitListener NONE = (start, end) -> { };
+
+        void committed(long start, long end);
+    }
+
+    private static final int MAX_BATCH = 4096;
+
+    private final Path file;
+    private FileChannel channel; // Only the committer reopens it
+    private Object fileKey; // Identity of the open file, or null where the platform has none
+    private final Durability durability;
+    private final CommitGuard commitGuard;
+    private final CommitListener listener;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean closed;
+
+    public GroupCommitWriter(Path file, Durability durability) throws IOException {
+        this(file, durability, CommitGuard.of(new ReentrantLock()));
+    }
+
+    public GroupCommitWriter(Path file, Durability durability, CommitGuard commitGuard) throws IOException {
+        this(file, durability, commitGuard, CommitListener.NONE);
+    }
+
+    public GroupCommitWriter(Path file, Durability durability, CommitGuard commitGuard, CommitListener listener)
+            throws IOException {
+        this.listener = listener;
+        this.file = file;
+        open();
+        this.durability = durability;
+        this.commitGuard = commitGuard;
+        this.committer = new Thread(this::commitLoop, "group-commit-" + file.getFileName());
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    // Queue a line (a line separator is added) and return a future holding the byte
+    // offset it was written at, completed according to the durability mode
+    public CompletableFuture<Long> append(String line) {
+        Request request = new Request((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        if (closed) {
+            request.future.completeExceptionally(new IOException("Writer is closed"));
+            return request.future;
+        }
+        queue.add(request);
+        // close() may have run between the check and the add, and its committer may
+        // already have drained the queue; a request left behind is failed, not stranded
+        if (closed && queue.remove(request)) {
+            request.future.completeExceptionally(new IOException("Writer is closed"));
+        }
+        return request.future;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    // Commit everything already queued, then stop the background thread and close the file
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        queue.add(Request.SHUTDOWN);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!committer.isAlive()) {
+            failQueued(); // Requests added after the committer's last drain
+        }
+        channel.close();
+    }
+
+    private void commitLoop() {
+        List<Request> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Only close() stops the committer
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            boolean shutdown = batch.remove(Request.SHUTDOWN);
+            if (!batch.isEmpty()) {
+                commit(batch);
+            }
+            batch.clear();
+            if (shutdown) {
+                failQueued(); // Anything that slipped in after close() was called
+                return;
+            }
+        }
+    }
+
+    private void commit(List<Request> batch) {
+        try {
+            if (durability == Durability.FSYNC_EACH) {
+                for (Request request : batch) {
+                    long offset = writeLocked(ByteBuffer.wrap(request.bytes));
+                    channel.force(false);
+                    request.future.complete(offset);
+                }
+                return;
+            }
+
+            int total = 0;
+            for (Request request : batch) {
+                total += request.bytes.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(total);
+            for (Request request : batch) {
+                buffer.put(request.bytes);
+            }
+            buffer.flip();
+            long offset = writeLocked(buffer);
+            if (durability == Durability.FSYNC_BATCH) {
+                channel.force(false);
+            }
+            for (Request request : batch) {
+                request.future.complete(offset);
+                offset += request.bytes.length;
+            }
+        } catch (IOException e) {
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Returns the offset the buffer was written at. Taken under the guard, so it stays
+    // right even when another program appends to the file between batches.
+    private long writeLocked(ByteBuffer buffer) throws IOException {
+        commitGuard.acquire();
+        try {
+            reopenIfMoved();
+            long start = channel.size();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            listener.committed(start, start + buffer.limit());
+            return start;
+        } finally {
+            commitGuard.release();
+        }
+    }
+
+    private void failQueued() {
+        Request late;
+        while ((late = queue.poll()) != null) {
+            late.future.completeExceptionally(new IOException("Writer is closed"));
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    // One stat per batch, taken under the commit guard so a rename cannot slip in before the write
+    private void reopenIfMoved() throws IOException {
+        if (fileKey == null) {
+            return;
+        }
+        Object current;
+        try {
+            current = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            current = null;
+        }
+        if (!fileKey.equals(current)) {
+            channel.close();
+            open();
+        }
+    }
+
+    private static class Request {
+        static final Request SHUTDOWN = new Request(new byte[0]);
+
+        final byte[] bytes;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Request(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package controllers;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sale state of the listings bought from in this process, so that two buyers cannot
+// both buy the same property. Each listing's state is one AtomicLong packing its
+// version and a sold bit. A purchase is a single compare-and-set from the version the
+// buyer saw to the next version marked sold: buyers never block each other and exactly
+// one of any number racing for a listing wins. Listings nobody has tried to buy yet
+// have no entry and count as unsold at version 0, the version properties are read at.
+// Sold listings keep their entry so a buyer holding a stale copy is turned away.
+public class ListingRegistry {
+
+    public enum PurchaseResult {
+        PURCHASED,
+        ALREADY_SOLD,
+        CHANGED // The listing moved on from the version the buyer saw
+    }
+
+    private static final long SOLD = 1;
+
+    private final ConcurrentHashMap<Long, AtomicLong> states = new ConcurrentHashMap<>();
+
+    // Claim a listing for one buyer if it is unsold and still at the expected version
+    public PurchaseResult tryPurchase(long id, int expectedVersion) {
+        AtomicLong state = states.get(id);
+        if (state == null) {
+            if (expectedVersion != 0) {
+                return PurchaseResult.CHANGED;
+            }
+            // First buyer of this listing: publish it already sold in one insert
+            state = states.putIfAbsent(id, new AtomicLong(pack(1, true)));
+            if (state == null) {
+                return PurchaseResult.PURCHASED;
+            }
+        }
+        long current = state.get();
+        while (true) {
+            if ((current & SOLD) != 0) {
+                return PurchaseResult.ALREADY_SOLD;
+            }
+            if (version(current) != expectedVersion) {
+                return PurchaseResult.CHANGED;
+            }
+            long witness = state.compareAndExchange(current, pack(expectedVersion + 1, true));
+            if (witness == current) {
+                return PurchaseResult.PURCHASED;
+            }
+            current = witness; // Lost a race; the loop reports who won
+        }
+    }
+
+    // Undo a claim whose sale could not be recorded, putting the listing back as it was
+    public void release(long id, int expectedVersion) {
+        AtomicLong state = states.get(id);
+        if (state != null) {
+            state.compareAndSet(pack(expectedVersion + 1, true), pack(expectedVersion, false));
+        }
+    }
+
+    public boolean isSold(long id) {
+        AtomicLong state = states.get(id);
+        return state != null && (state.get() & SOLD) != 0;
+    }
+
+    // Current version of a listing
+    public int getVersion(long id) {
+        AtomicLong state = states.get(id);
+        return state == null ? 0 : version(state.get());
+    }
+
+    private static long pack(int version, boolean sold) {
+        return ((long) version << 1) | (sold ? SOLD : 0);
+    }
+
+    private static int version(long state) {
+        return (int) (state >>> 1);
+    }
+}
@@ -0,0 +1,602 @@
+package controllers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import models.Property;
+
+// The current listing in a memory-mapped file of fixed-size records, shared by every
+// HomeFinder process on the same data directory, so each one sees the others' new
+// listings and sales without re-reading properties.csv. The CSV and its property log
+// stay the durable copy; this table is rebuilt from them whenever a process opens it
+// and finds no other process using it.
+//
+// Layout (big-endian):
+//   header  64 bytes: magic, format version, record size, record count,
+//           sequence, sequence of the last full rebuild, end of the string heap
+//   records RECORD_SIZE bytes each, in the order listings were added: state, version,
+//           id, stamp (sequence of its last change), the property's columns, and where
+//           its strings are in the heap
+// The strings (type, address and scheme, UTF-8, back to back) live in a second,
+// append-only file next to the table, so they are kept whole whatever their length.
+// The heap is emptied only when a process rebuilds the table alone; a rebuild while
+// others have it open appends the strings again.
+//
+// Writers take an exclusive ProcessLock on a byte range past the end of the data, so
+// one writer at a time runs across all processes. The sequence is
+// a seqlock: a writer makes it odd before touching any record and even again when done,
+// and stamps every record it changes with that even value. Readers copy what they need
+// and retry if the sequence moved meanwhile, so they never take a lock. A writer that
+// gets the lock and finds the sequence odd knows the previous one died mid-write, and
+// evens it out; a reader that keeps finding it odd takes the lock to do the same.
+// Every open table also holds a shared lock on a second range; the process that can
+// take it exclusively is the only one open and rebuilds the table from the files.
+public class ListingTable implements Closeable {
+    private static final int MAGIC = 0x48464c54; // "HFLT"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 80;
+    private static final int INITIAL_CAPACITY = 1024; // Records; the file doubles when full
+
+    // Header fields
+    private static final int MAGIC_AT = 0;
+    private static final int FORMAT_AT = 4;
+    private static final int RECORD_SIZE_AT = 8;
+    private static final int COUNT_AT = 12;
+    private static final int SEQUENCE_AT = 16;
+    private static final int RESET_AT = 24;
+    private static final int HEAP_END_AT = 32;
+
+    // Record fields
+    private static final int STATE_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int ID_AT = 8;
+    private static final int STAMP_AT = 16;
+    private static final int SIZE_SQM_AT = 24;
+    private static final int SQFT_AT = 28;
+    private static final int FLOORS_AT = 32;
+    private static final int YEAR_AT = 36;
+    private static final int PRICE_AT = 40;
+    private static final int PRICE_PER_SQFT_AT = 48;
+    private static final int STRINGS_AT = 56; // Heap offset of the type, followed by address and scheme
+    private static final int TYPE_LENGTH_AT = 64;
+    private static final int ADDRESS_LENGTH_AT = 68;
+    private static final int SCHEME_LENGTH_AT = 72;
+
+    private static final byte LISTED = 1;
+    private static final byte SOLD = 2;
+
+    // Advisory lock ranges, kept clear of the data so they never move as the file grows
+    private static final long WRITE_LOCK_AT = Long.MAX_VALUE - 2;
+    private static final long LIVE_LOCK_AT = Long.MAX_VALUE - 1;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    // What changed in the listing since a given sequence; after a rebuild, listed is
+    // the whole listing and nothing is removed
+    public static final class Changes {
+        private final long sequence;
+        private final boolean reset;
+        private final List<Property> listed;
+        private final List<Long> removed;
+
+        private Changes(long sequence, boolean reset, List<Property> listed, List<Long> removed) {
+            this.sequence = sequence;
+            this.reset = reset;
+            this.listed = listed;
+            this.removed = removed;
+        }
+
+        // The sequence to ask for changes since next time
+        public long getSequence() {
+            return sequence;
+        }
+
+        public boolean isReset() {
+            return reset;
+        }
+
+        public List<Property> getListed() {
+            return listed;
+        }
+
+        public List<Long> getRemoved() {
+            return removed;
+        }
+
+        public boolean isEmpty() {
+            return !reset && listed.isEmpty() && removed.isEmpty();
+        }
+    }
+
+    private final FileChannel channel;
+    private final FileChannel heap;
+    private final FileLock liveLock;
+    private volatile MappedByteBuffer buffer;
+
+    private final ProcessLock writeLock;
+    private final Map<Long, Integer> slots = new HashMap<>(); // Id -> record, up to indexedCount
+    private int indexedCount;
+    private long writeSequence = -1; // Even sequence being written, or -1 outside a change
+
+    private ListingTable(FileChannel channel, FileChannel heap, ProcessLock writeLock, FileLock liveLock,
+            MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.heap = heap;
+        this.writeLock = writeLock;
+        this.liveLock = liveLock;
+        this.buffer = buffer;
+    }
+
+    // Open the table, rebuilding it from the listing source if no other process has it open
+    public static ListingTable open(Path file, Supplier<List<Property>> source) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel heap = null;
+        try {
+            heap = FileChannel.open(file.resolveSibling(file.getFileName() + ".strings"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ListingTable table;
+            ProcessLock writeLock = new ProcessLock(channel, WRITE_LOCK_AT);
+            writeLock.lockExclusive();
+            try {
+                FileLock alone = channel.tryLock(LIVE_LOCK_AT, 1, false);
+                if (alone != null) {
+                    alone.release();
+                } else if (channel.size() < HEADER_SIZE
+                        || !isCompatible(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE))) {
+                    throw new IOException("Listing table " + file + " is in use by another process but cannot be read");
+                }
+                // Joining processes share the live range; held until close or exit
+                FileLock liveLock = channel.lock(LIVE_LOCK_AT, 1, true);
+                if (alone != null) {
+                    channel.truncate(0);
+                    heap.truncate(0);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                            HEADER_SIZE + (long) INITIAL_CAPACITY * RECORD_SIZE);
+                    buffer.putInt(MAGIC_AT, MAGIC);
+                    buffer.putInt(FORMAT_AT, FORMAT_VERSION);
+                    buffer.putInt(RECORD_SIZE_AT, RECORD_SIZE);
+                    table = new ListingTable(channel, heap, writeLock, liveLock, buffer);
+                    table.rebuildLocked(source.get());
+                } else {
+                    table = new ListingTable(channel, heap, writeLock, liveLock,
+                            channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+                }
+            } finally {
+                writeLock.unlockExclusive();
+            }
+            return table;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (heap != null) {
+                heap.close();
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isCompatible(MappedByteBuffer header) {
+        return header.getInt(MAGIC_AT) == MAGIC && header.getInt(FORMAT_AT) == FORMAT_VERSION
+                && header.getInt(RECORD_SIZE_AT) == RECORD_SIZE;
+    }
+
+    // Changes to the listing, by this or any other process, bump this number
+    public long getSequence() {
+        return (long) LONGS.getAcquire(buffer, SEQUENCE_AT) & ~1L;
+    }
+
+    // Publish a new listing; a property already in the table is left as it is
+    public void add(Property property) throws IOException {
+        write(() -> {
+            if (slotOf(property.getId()) >= 0) {
+                return null;
+            }
+            append(property, beginChange());
+            return null;
+        });
+    }
+
+    // Publish several new listings as one change
+    public void addAll(List<Property> properties) throws IOException {
+        write(() -> {
+            for (Property property : properties) {
+                if (slotOf(property.getId()) < 0) {
+                    append(property, beginChange());
+                }
+            }
+            return null;
+        });
+    }
+
+    // Bring the table in line with a listing read from the files when the table's
+    // sequence was asOf: listings missing from the table are added and listed records
+    // missing from the files are removed. Records changed after asOf are newer than the
+    // files as read and are left alone, as are sold ones, which may be mid-sale.
+    public void reconcile(List<Property> properties, long asOf) throws IOException {
+        write(() -> {
+            Set<Long> ids = new HashSet<>();
+            for (Property property : properties) {
+                ids.add(property.getId());
+            }
+            MappedByteBuffer map = buffer;
+            int count = map.getInt(COUNT_AT);
+            for (int slot = 0; slot < count; slot++) {
+                int record = recordAt(slot);
+                if (map.get(record + STATE_AT) == LISTED && map.getLong(record + STAMP_AT) <= asOf
+                        && !ids.contains(map.getLong(record + ID_AT))) {
+                    long stamp = beginChange();
+                    map.put(record + STATE_AT, SOLD);
+                    map.putInt(record + VERSION_AT, map.getInt(record + VERSION_AT) + 1);
+                    map.putLong(record + STAMP_AT, stamp);
+                }
+            }
+            for (Property property : properties) {
+                if (slotOf(property.getId()) < 0) {
+                    append(property, beginChange());
+                }
+            }
+            return null;
+        });
+    }
+
+    // Claim a listing for a buyer in every process at once; same outcomes as ListingRegistry.
+    // A listing the table has never seen has no other buyers to race and counts as purchased.
+    public ListingRegistry.PurchaseResult tryPurchase(long id, int expectedVersion) throws IOException {
+        return write(() -> {
+            int slot = slotOf(id);
+            if (slot < 0) {
+                return ListingRegistry.PurchaseResult.PURCHASED;
+            }
+            int record = recordAt(slot);
+            MappedByteBuffer map = buffer;
+            if (map.get(record + STATE_AT) != LISTED) {
+                return ListingRegistry.PurchaseResult.ALREADY_SOLD;
+            }
+            if (map.getInt(record + VERSION_AT) != expectedVersion) {
+                return ListingRegistry.PurchaseResult.CHANGED;
+            }
+            long stamp = beginChange();
+            map.put(record + STATE_AT, SOLD);
+            map.putInt(record + VERSION_AT, expectedVersion + 1);
+            map.putLong(record + STAMP_AT, stamp);
+            return ListingRegistry.PurchaseResult.PURCHASED;
+        });
+    }
+
+    // Put back a listing claimed by tryPurchase whose sale could not be recorded
+    public void release(long id, int expectedVersion) throws IOException {
+        write(() -> {
+            int slot = slotOf(id);
+            if (slot >= 0) {
+                int record = recordAt(slot);
+                MappedByteBuffer map = buffer;
+                if (map.get(record + STATE_AT) == SOLD && map.getInt(record + VERSION_AT) == expectedVersion + 1) {
+                    long stamp = beginChange();
+                    map.put(record + STATE_AT, LISTED);
+                    map.putInt(record + VERSION_AT, expectedVersion);
+                    map.putLong(record + STAMP_AT, stamp);
+                }
+            }
+            return null;
+        });
+    }
+
+    // Take a listing off the table, whether or not it went through tryPurchase
+    public void remove(long id) throws IOException {
+        write(() -> {
+            int slot = slotOf(id);
+            if (slot >= 0) {
+                int record = recordAt(slot);
+                MappedByteBuffer map = buffer;
+                if (map.get(record + STATE_AT) == LISTED) {
+                    long stamp = beginChange();
+                    map.put(record + STATE_AT, SOLD);
+                    map.putInt(record + VERSION_AT, map.getInt(record + VERSION_AT) + 1);
+                    map.putLong(record + STAMP_AT, stamp);
+                }
+            }
+            return null;
+        });
+    }
+
+    // Replace the whole listing, e.g. after properties.csv was rewritten
+    public void rebuild(List<Property> properties) throws IOException {
+        write(() -> {
+            rebuildLocked(properties);
+            return null;
+        });
+    }
+
+    // Everything that changed after the given sequence; a sequence from before the
+    // last rebuild gets the whole listing back with reset set
+    public Changes changesSince(long since) throws IOException {
+        int attempts = 0;
+        while (true) {
+            MappedByteBuffer map = buffer;
+            long before = (long) LONGS.getAcquire(map, SEQUENCE_AT);
+            int count = map.getInt(COUNT_AT);
+            if ((before & 1) == 0 && recordAt(count) > map.capacity()) {
+                remap(); // Another process grew the file
+                continue;
+            }
+            if ((before & 1) == 0) {
+                boolean reset = map.getLong(RESET_AT) > since;
+                List<Listed> listed = new ArrayList<>();
+                List<Long> removed = new ArrayList<>();
+                for (int slot = 0; slot < count; slot++) {
+                    int record = recordAt(slot);
+                    byte state = map.get(record + STATE_AT);
+                    if (reset ? state == LISTED : map.getLong(record + STAMP_AT) > since) {
+                        if (state == LISTED) {
+                            listed.add(readListed(map, record));
+                        } else {
+                            removed.add(map.getLong(record + ID_AT));
+                        }
+                    }
+                }
+                VarHandle.acquireFence();
+                if ((long) LONGS.getAcquire(map, SEQUENCE_AT) == before) {
+                    // The heap only grows while others have the table open, so strings
+                    // referenced by a consistent copy stay put and are read outside the retry
+                    return new Changes(before, reset, readStrings(listed), removed);
+                }
+            }
+            // A writer is busy: spin briefly, then give it the CPU, and if it still has
+            // not finished, queue for the write lock behind it in case it died
+            attempts++;
+            if (attempts < 100) {
+                Thread.onSpinWait();
+            } else if (attempts < 1000) {
+                Thread.yield();
+            } else {
+                write(() -> null);
+                attempts = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            liveLock.release();
+        } finally {
+            channel.close();
+            heap.close();
+        }
+    }
+
+    private interface Change<T> {
+        T apply() throws IOException;
+    }
+
+    private <T> T write(Change<T> change) throws IOException {
+        writeLock.lockExclusive();
+        try {
+            return writeLocked(change);
+        } finally {
+            writeLock.unlockExclusive();
+        }
+    }
+
+    // Apply a change while holding the cross-process write lock
+    private <T> T writeLocked(Change<T> change) throws IOException {
+        long sequence = (long) LONGS.getAcquire(buffer, SEQUENCE_AT);
+        if ((sequence & 1) != 0) {
+            System.err.println("Listing table was left mid-change by a process that exited; recovering");
+            LONGS.setRelease(buffer, SEQUENCE_AT, sequence + 1);
+        }
+        if (recordAt(buffer.getInt(COUNT_AT)) > buffer.capacity()) {
+            remap();
+        }
+        try {
+            return change.apply();
+        } finally {
+            endChange();
+        }
+    }
+
+    // Mark the table as changing, at most once per write; returns the stamp for changed records
+    private long beginChange() {
+        if (writeSequence < 0) {
+            MappedByteBuffer map = buffer;
+            long sequence = (long) LONGS.getAcquire(map, SEQUENCE_AT) + 1;
+            LONGS.setRelease(map, SEQUENCE_AT, sequence);
+            VarHandle.storeStoreFence(); // Readers must see the odd sequence before any record change
+            writeSequence = sequence + 1;
+        }
+        return writeSequence;
+    }
+
+    private void endChange() {
+        if (writeSequence >= 0) {
+            LONGS.setRelease(buffer, SEQUENCE_AT, writeSequence);
+            writeSequence = -1;
+        }
+    }
+
+    // Caller holds the write locks
+    private void rebuildLocked(List<Property> properties) throws IOException {
+        long stamp = beginChange();
+        buffer.putInt(COUNT_AT, 0);
+        slots.clear();
+        indexedCount = 0;
+        for (Property property : properties) {
+            if (slotOf(property.getId()) < 0) {
+                append(property, stamp);
+            }
+        }
+        buffer.putLong(RESET_AT, stamp);
+        endChange();
+    }
+
+    private void append(Property property, long stamp) throws IOException {
+        int slot = buffer.getInt(COUNT_AT);
+        if (recordAt(slot + 1) > buffer.capacity()) {
+            channel.write(ByteBuffer.wrap(new byte[1]), HEADER_SIZE + 2L * slot * RECORD_SIZE - 1);
+            remap();
+        }
+        byte[] type = property.getPropertyType().getBytes(StandardCharsets.UTF_8);
+        byte[] address = property.getAddress().getBytes(StandardCharsets.UTF_8);
+        byte[] scheme = property.getScheme().getBytes(StandardCharsets.UTF_8);
+        long strings = appendStrings(type, address, scheme);
+
+        MappedByteBuffer map = buffer;
+        int record = recordAt(slot);
+        map.put(record + STATE_AT, LISTED);
+        map.putInt(record + VERSION_AT, property.getVersion());
+        map.putLong(record + ID_AT, property.getId());
+        map.putLong(record + STAMP_AT, stamp);
+        map.putInt(record + SIZE_SQM_AT, property.getSizeSqM());
+        map.putInt(record + SQFT_AT, property.getSqFt());
+        map.putInt(record + FLOORS_AT, property.getNoOfFloors());
+        map.putInt(record + YEAR_AT, property.getYear());
+        map.putDouble(record + PRICE_AT, property.getPrice());
+        map.putDouble(record + PRICE_PER_SQFT_AT, property.getPricePerSqft());
+        map.putLong(record + STRINGS_AT, strings);
+        map.putInt(record + TYPE_LENGTH_AT, type.length);
+        map.putInt(record + ADDRESS_LENGTH_AT, address.length);
+        map.putInt(record + SCHEME_LENGTH_AT, scheme.length);
+        map.putInt(COUNT_AT, slot + 1);
+        slots.put(property.getId(), slot);
+        indexedCount = slot + 1;
+    }
+
+    // Record of an id, indexing any records other processes appended since the last lookup
+    private int slotOf(long id) {
+        MappedByteBuffer map = buffer;
+        int count = map.getInt(COUNT_AT);
+        for (; indexedCount < count; indexedCount++) {
+            slots.put(map.getLong(recordAt(indexedCount) + ID_AT), indexedCount);
+        }
+        Integer slot = slots.get(id);
+        return slot == null ? -1 : slot;
+    }
+
+    private void remap() {
+        try {
+            synchronized (channel) {
+                if (channel.size() > buffer.capacity()) {
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not remap the listing table", e);
+        }
+    }
+
+    private static int recordAt(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    // Write a listing's strings at the end of the heap before its record points at them;
+    // returns where they start
+    private long appendStrings(byte[]... values) throws IOException {
+        long start = buffer.getLong(HEAP_END_AT);
+        int total = 0;
+        for (byte[] value : values) {
+            total += value.length;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(total);
+        for (byte[] value : values) {
+            bytes.put(value);
+        }
+        bytes.flip();
+        long position = start;
+        while (bytes.hasRemaining()) {
+            position += heap.write(bytes, position);
+        }
+        buffer.putLong(HEAP_END_AT, position);
+        return start;
+    }
+
+    // A listed record copied under the seqlock; its strings are read once the copy is known good
+    private static final class Listed {
+        final Property.Builder builder;
+        final long strings;
+        final int typeLength;
+        final int addressLength;
+        final int schemeLength;
+
+        Listed(Property.Builder builder, long strings, int typeLength, int addressLength, int schemeLength) {
+            this.builder = builder;
+            this.strings = strings;
+            this.typeLength = typeLength;
+            this.addressLength = addressLength;
+            this.schemeLength = schemeLength;
+        }
+
+        long end() {
+            return strings + typeLength + addressLength + schemeLength;
+        }
+    }
+
+    // A torn copy during a concurrent write is discarded by the caller, but must not throw
+    private static Listed readListed(MappedByteBuffer map, int record) {
+        Property.Builder builder = new Property.Builder()
+                .setId(map.getLong(record + ID_AT))
+                .setVersion(map.getInt(record + VERSION_AT))
+                .setSizeSqM(map.getInt(record + SIZE_SQM_AT))
+                .setSqFt(map.getInt(record + SQFT_AT))
+                .setNoOfFloors(map.getInt(record + FLOORS_AT))
+                .setPrice(map.getDouble(record + PRICE_AT))
+                .setYear(map.getInt(record + YEAR_AT))
+                .setPricePerSqft(map.getDouble(record + PRICE_PER_SQFT_AT));
+        return new Listed(builder, map.getLong(record + STRINGS_AT), map.getInt(record + TYPE_LENGTH_AT),
+                map.getInt(record + ADDRESS_LENGTH_AT), map.getInt(record + SCHEME_LENGTH_AT));
+    }
+
+    // Read the heap span the listings' strings fall in with one read, and finish the properties
+    private List<Property> readStrings(List<Listed> listed) throws IOException {
+        List<Property> properties = new ArrayList<>(listed.size());
+        if (listed.isEmpty()) {
+            return properties;
+        }
+        long from = Long.MAX_VALUE;
+        long to = 0;
+        for (Listed entry : listed) {
+            if (entry.strings < 0 || entry.typeLength < 0 || entry.addressLength < 0 || entry.schemeLength < 0) {
+                throw new IOException("Listing table has a corrupt record");
+            }
+            from = Math.min(from, entry.strings);
+            to = Math.max(to, entry.end());
+        }
+        if (to - from > Integer.MAX_VALUE - 8) {
+            throw new IOException("Listing table strings span " + (to - from) + " bytes");
+        }
+        ByteBuffer span = ByteBuffer.allocate((int) (to - from));
+        while (span.hasRemaining()) {
+            if (heap.read(span, from + span.position()) < 0) {
+                throw new IOException("Listing table strings end before " + to);
+            }
+        }
+        byte[] bytes = span.array();
+        for (Listed entry : listed) {
+            int at = (int) (entry.strings - from);
+            properties.add(entry.builder
+                    .setPropertyType(new String(bytes, at, entry.typeLength, StandardCharsets.UTF_8))
+                    .setAddress(new String(bytes, at + entry.typeLength, entry.addressLength, StandardCharsets.UTF_8))
+                    .setScheme(new String(bytes, at + entry.typeLength + entry.addressLength, entry.schemeLength,
+                            StandardCharsets.UTF_8))
+                    .build());
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,62 @@
+package controllers;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress and cancellation for one background load. Loaders report work done
+// (bytes for file scans) and poll for cancellation between batches of rows; the
+// listener is called on the loading thread, so UI code must hop to the EDT itself.
+public class LoadMonitor {
+
+    public interface Listener {
+        void progress(long done, long total);
+    }
+
+    // Monitor for callers that want neither progress nor cancellation
+    public static final LoadMonitor NONE = new LoadMonitor(null);
+
+    private final Listener listener;
+    private final AtomicLong done = new AtomicLong();
+    private volatile long total;
+    private volatile boolean cancelled;
+
+    public LoadMonitor(Listener listener) {
+        this.listener = listener;
+    }
+
+    // Ask the load to stop at its next check
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Throw CancellationException if the load has been cancelled
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Load cancelled");
+        }
+    }
+
+    // Start a stage of work of the given size
+    void begin(long total) {
+        this.total = total;
+        done.set(0);
+        notifyListener(0);
+    }
+
+    // Record more work done; safe to call from several loader threads
+    void advance(long amount) {
+        notifyListener(done.addAndGet(amount));
+    }
+
+    private void notifyListener(long current) {
+        if (listener != null) {
+            listener.progress(Math.min(current, total), total);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+// Salted PBKDF2 password hashing for users.txt.
+// Stored form: pbkdf2-sha256$<iterations>$<base64 salt>$<base64 hash>, so the work
+// factor can be raised later without invalidating existing hashes.
+//
+// Three things keep login cost under control:
+//   - the iteration count is configurable;
+//   - a bounded LRU remembers an HMAC of recently verified credentials under a key
+//     drawn at random for this process, so repeat logins skip the PBKDF2 work and
+//     the cache is no easier to attack than users.txt itself;
+//   - hashing runs on a small bounded pool rather than on the caller's thread, and
+//     a burst beyond the queue is rejected instead of piling up.
+public class PasswordHasher {
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final String CACHE_MAC = "HmacSHA256";
+    private static final int MAX_ITERATIONS = 10_000_000; // Refuse stored hashes that would tie up a hasher thread for minutes
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec cacheKey;
+    private final Map<String, byte[]> verified;
+    private final ThreadPoolExecutor executor;
+    private volatile String dummyHash; // Computed on first use, on whichever thread verifies
+
+    public PasswordHasher(int iterations, int cacheSize) {
+        this.iterations = iterations;
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        this.cacheKey = new SecretKeySpec(key, CACHE_MAC);
+        this.verified = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    // Run work (typically a login or signup) on the hashing pool.
+    // The future fails with RejectedExecutionException when the pool is saturated.
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Hash a password with a fresh salt
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+
+    // True if the stored value is a hash produced by this class rather than a legacy plaintext password
+    public static boolean isHash(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    // Check a password against a stored value in time independent of where they differ.
+    // Legacy plaintext entries are still accepted so existing accounts keep working.
+    public boolean verify(String password, String stored) {
+        if (stored == null) {
+            verify(password, dummyHash());
+            return false;
+        }
+        if (!isHash(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        byte[] salt;
+        byte[] expected;
+        int storedIterations;
+        try {
+            storedIterations = Integer.parseInt(parts[1]);
+            salt = Base64.getDecoder().decode(parts[2]);
+            expected = Base64.getDecoder().decode(parts[3]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (storedIterations < 1 || storedIterations > MAX_ITERATIONS) {
+            System.err.println("Rejected a stored password hash with " + parts[1] + " iterations");
+            return false;
+        }
+
+        byte[] quickDigest = cacheMac(stored, password);
+        byte[] cached;
+        synchronized (verified) {
+            cached = verified.get(stored);
+        }
+        if (cached != null && MessageDigest.isEqual(cached, quickDigest)) {
+            return true;
+        }
+
+        boolean matches = MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+        if (matches) {
+            synchronized (verified) {
+                verified.put(stored, quickDigest);
+            }
+        }
+        return matches;
+    }
+
+    // Verified against when a username does not exist, so misses cost the same as hits
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null) {
+            synchronized (this) {
+                hash = dummyHash;
+                if (hash == null) {
+                    hash = hash("not-a-real-password");
+                    dummyHash = hash;
+                }
+            }
+        }
+        return hash;
+    }
+
+    // Forget remembered credentials, e.g. after a password change
+    public void clearCache() {
+        synchronized (verified) {
+            verified.clear();
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // The stored value is length-prefixed so no (stored, password) pair can collide with another
+    private byte[] cacheMac(String stored, String password) {
+        try {
+            Mac mac = Mac.getInstance(CACHE_MAC);
+            mac.init(cacheKey);
+            byte[] storedBytes = stored.getBytes(StandardCharsets.UTF_8);
+            mac.update(new byte[] {
+                    (byte) (storedBytes.length >>> 24), (byte) (storedBytes.length >>> 16),
+                    (byte) (storedBytes.length >>> 8), (byte) storedBytes.length });
+            mac.update(storedBytes);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(CACHE_MAC + " is not available", e);
+        }
+    }
+}
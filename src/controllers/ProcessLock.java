@@ -0,0 +1,119 @@
+package controllers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Read-write lock shared with the other processes on a data directory, over one byte of
+// a file. A FileLock belongs to the whole JVM and may not overlap another it holds, so
+// the threads of this process first queue on an in-process read-write lock: readers then
+// share a single shared FileLock, taken by the first of them and released by the last,
+// and a writer takes the FileLock exclusively once it has the in-process lock to itself.
+// Both wait in the blocking FileChannel.lock.
+//
+// POSIX record locks belong to a process, not a thread, so the kernel reports a deadlock
+// when two processes each have one thread waiting for a lock the other holds, even if
+// the threads involved never wait on each other. That false deadlock is the only error
+// retried, after a short pause in which no monitor is held.
+class ProcessLock {
+    private static final long DEADLOCK_RETRY_MILLIS = 5;
+
+    private final FileChannel channel;
+    private final long position;
+    private final ReentrantReadWriteLock local = new ReentrantReadWriteLock();
+    private final ReentrantLock sharedTransition = new ReentrantLock(); // Guards sharers and sharedLock
+    private int sharers;
+    private FileLock sharedLock;
+    private FileLock exclusiveLock; // Only touched by the holder of the local write lock
+
+    ProcessLock(FileChannel channel, long position) {
+        this.channel = channel;
+        this.position = position;
+    }
+
+    void lockShared() throws IOException {
+        local.readLock().lock();
+        sharedTransition.lock();
+        try {
+            if (sharers == 0) {
+                sharedLock = acquire(true);
+            }
+            sharers++;
+        } catch (IOException | RuntimeException e) {
+            local.readLock().unlock();
+            throw e;
+        } finally {
+            sharedTransition.unlock();
+        }
+    }
+
+    void unlockShared() {
+        sharedTransition.lock();
+        try {
+            if (--sharers == 0) {
+                release(sharedLock);
+                sharedLock = null;
+            }
+        } finally {
+            sharedTransition.unlock();
+            local.readLock().unlock();
+        }
+    }
+
+    void lockExclusive() throws IOException {
+        local.writeLock().lock();
+        try {
+            exclusiveLock = acquire(false);
+        } catch (IOException | RuntimeException e) {
+            local.writeLock().unlock();
+            throw e;
+        }
+    }
+
+    void unlockExclusive() {
+        try {
+            release(exclusiveLock);
+            exclusiveLock = null;
+        } finally {
+            local.writeLock().unlock();
+        }
+    }
+
+    private FileLock acquire(boolean shared) throws IOException {
+        while (true) {
+            try {
+                return channel.lock(position, 1, shared);
+            } catch (IOException e) {
+                if (!isFalseDeadlock(e)) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(DEADLOCK_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for a file lock");
+            }
+        }
+    }
+
+    // EDEADLK, which the JDK reports with the platform's message for it
+    private static boolean isFalseDeadlock(IOException e) {
+        String message = e.getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("deadlock");
+    }
+
+    private static void release(FileLock lock) {
+        try {
+            if (lock.isValid()) {
+                lock.release();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not release a file lock: " + e.getMessage());
+        }
+    }
+}
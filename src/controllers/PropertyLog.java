@@ -0,0 +1,351 @@
+package controllers;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import models.Property;
+
+// Write-ahead log for the property listing.
+// Adding or selling a property appends one "+" or "-" record to properties.wal
+// instead of rewriting properties.csv. Readers see the CSV with the log replayed
+// on top. A background task folds the log into the CSV once it grows: it writes a
+// complete new CSV to a temp file and renames it over the old one, so the listing
+// file is never left half-written.
+//
+// Compaction commit protocol (all renames are atomic):
+//   1. write properties.csv.tmp and force it to disk
+//   2. rename properties.wal -> properties.wal.done   (the new CSV now owns those records)
+//   3. rename properties.csv.tmp -> properties.csv
+//   4. delete properties.wal.done
+// On startup a leftover .done means step 3 may be missing and is redone; a
+// leftover .tmp without .done is an unfinished compaction and is discarded.
+//
+// Several processes may share the data directory, so properties.csv.lock is locked
+// across them: shared while a batch is appended or the listing is read, exclusive
+// while a compaction, rewrite or recovery runs. Another process's writer therefore
+// never appends to a log that is being folded, and its next batch reopens the fresh
+// properties.wal once the old one has been renamed away.
+public class PropertyLog implements Closeable {
+    private static final char ADD = '+';
+    private static final char REMOVE = '-';
+    private static final long COMPACTION_CHECK_MINUTES = 5;
+
+    private final Path csvFile;
+    private final Path walFile;
+    private final Path doneFile;
+    private final Path tempFile;
+    private final FileChannel lockChannel;
+    private final ProcessLock processLock;
+    private final Supplier<List<Property>> baseReader;
+    private final RejectCounter rejects; // Counts log records that do not parse, with the CSV's rows
+    private final int compactThreshold;
+    private final GroupCommitWriter.Durability durability;
+
+    // Appends and reads share the lock; compaction takes it exclusively. Within this
+    // process it is taken before processLock.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicInteger pendingRecords = new AtomicInteger();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ScheduledExecutorService compactor;
+    private GroupCommitWriter writer;
+
+    public PropertyLog(Path csvFile, Supplier<List<Property>> baseReader, RejectCounter rejects, int compactThreshold,
+            GroupCommitWriter.Durability durability) throws IOException {
+        this.csvFile = csvFile;
+        this.walFile = sibling(csvFile, ".wal");
+        this.doneFile = sibling(csvFile, ".wal.done");
+        this.tempFile = sibling(csvFile, ".tmp");
+        this.lockChannel = FileChannel.open(sibling(csvFile, ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.processLock = new ProcessLock(lockChannel, 0);
+        this.baseReader = baseReader;
+        this.rejects = rejects;
+        this.compactThreshold = compactThreshold;
+        this.durability = durability;
+
+        processLock.lockExclusive();
+        try {
+            recover();
+        } finally {
+            processLock.unlockExclusive();
+        }
+        pendingRecords.set(readRecords(walFile).size());
+
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "property-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compactQuietly,
+                COMPACTION_CHECK_MINUTES, COMPACTION_CHECK_MINUTES, TimeUnit.MINUTES);
+    }
+
+    // Log a newly listed property
+    public CompletableFuture<Long> add(Property property) {
+        return append(ADD, property);
+    }
+
+    // Log a property leaving the listing
+    public CompletableFuture<Long> remove(Property property) {
+        return append(REMOVE, property);
+    }
+
+    // The listing as of now: the CSV (via the base reader) with the log replayed on top
+    public List<Property> read() {
+        lock.readLock().lock();
+        try {
+            processLock.lockShared();
+        } catch (IOException e) {
+            lock.readLock().unlock();
+            System.err.println("Could not lock the property log, reading it unlocked: " + e.getMessage());
+            return readUnlocked();
+        }
+        try {
+            return readUnlocked();
+        } finally {
+            processLock.unlockShared();
+            lock.readLock().unlock();
+        }
+    }
+
+    // Replace the whole listing, e.g. after an external edit of the in-memory list
+    public void rewrite(List<Property> properties) throws IOException {
+        lock.writeLock().lock();
+        try {
+            closeWriter();
+            processLock.lockExclusive();
+            try {
+                commit(properties);
+            } finally {
+                processLock.unlockExclusive();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Fold the log into the CSV now
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            compactionQueued.set(false);
+            if (!Files.exists(walFile) || Files.size(walFile) == 0) {
+                return;
+            }
+            closeWriter();
+            processLock.lockExclusive();
+            try {
+                // Recheck: another process may have compacted meanwhile
+                if (Files.exists(walFile) && Files.size(walFile) > 0) {
+                    List<Property> properties = baseReader.get();
+                    commit(replay(properties, readRecords(walFile)));
+                }
+            } finally {
+                processLock.unlockExclusive();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        lock.writeLock().lock();
+        try {
+            closeWriter();
+        } finally {
+            lock.writeLock().unlock();
+            lockChannel.close(); // Releases any file lock still held
+        }
+    }
+
+    private CompletableFuture<Long> append(char type, Property property) {
+        lock.readLock().lock();
+        try {
+            return getWriter().append(type + "\t" + FileHandler.formatProperty(property))
+                    .whenComplete((offset, error) -> {
+                        if (error == null && pendingRecords.incrementAndGet() >= compactThreshold
+                                && compactionQueued.compareAndSet(false, true)) {
+                            compactor.execute(this::compactQuietly);
+                        }
+                    });
+        } catch (IOException e) {
+            CompletableFuture<Long> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private synchronized GroupCommitWriter getWriter() throws IOException {
+        if (writer == null) {
+            // Each batch is appended under the shared process lock, so no other process
+            // compacts the log halfway through it
+            writer = new GroupCommitWriter(walFile, durability, new GroupCommitWriter.CommitGuard() {
+                @Override
+                public void acquire() throws IOException {
+                    processLock.lockShared();
+                }
+
+                @Override
+                public void release() {
+                    processLock.unlockShared();
+                }
+            });
+        }
+        return writer;
+    }
+
+    // Drain and close the writer so no append is in flight while files are renamed.
+    // Called without processLock held, since draining takes it shared.
+    private synchronized void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            System.err.println("Property log compaction failed: " + e.getMessage());
+        }
+    }
+
+    private List<Property> readUnlocked() {
+        List<Property> properties = baseReader.get();
+        List<String> records = readRecords(walFile);
+        return records.isEmpty() ? properties : replay(properties, records);
+    }
+
+    // Steps 1-4 of the commit protocol; the caller holds the write lock and processLock exclusively
+    private void commit(List<Property> properties) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            out.write(FileHandler.PROPERTY_HEADER);
+            out.newLine();
+            for (Property property : properties) {
+                out.write(FileHandler.formatProperty(property));
+                out.newLine();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        if (Files.exists(walFile)) {
+            Files.move(walFile, doneFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tempFile, csvFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(doneFile);
+        pendingRecords.set(0);
+    }
+
+    // Finish or discard a compaction interrupted by a crash
+    private void recover() throws IOException {
+        if (Files.exists(doneFile)) {
+            if (Files.exists(tempFile)) {
+                Files.move(tempFile, csvFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.delete(doneFile);
+        } else {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Complete records of a log file; a torn last line from a crash mid-append is ignored
+    private static List<String> readRecords(Path file) {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return records;
+        }
+        String text;
+        try {
+            text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Could not read property log " + file + ": " + e.getMessage());
+            return records;
+        }
+        int start = 0;
+        int end;
+        while ((end = text.indexOf('\n', start)) >= 0) {
+            String line = text.substring(start, end > start && text.charAt(end - 1) == '\r' ? end - 1 : end);
+            if (line.length() > 2 && (line.charAt(0) == ADD || line.charAt(0) == REMOVE) && line.charAt(1) == '\t') {
+                records.add(line);
+            }
+            start = end + 1;
+        }
+        return records;
+    }
+
+    // Apply records in order; a removal takes out the listed property with the same id.
+    // Records logged before properties had ids carry none and get the same derived id
+    // as their CSV row; removing a repeat of such a row moves on to the next duplicate.
+    private List<Property> replay(List<Property> base, List<String> records) {
+        List<Property> properties = new ArrayList<>(base);
+        Map<Long, Integer> positions = new HashMap<>();
+        Set<Long> derivedIds = new HashSet<>();
+        for (int i = 0; i < properties.size(); i++) {
+            positions.put(properties.get(i).getId(), i);
+            derivedIds.add(properties.get(i).getId());
+        }
+        BitSet removed = new BitSet();
+        for (String record : records) {
+            String line = record.substring(2);
+            Property property = FileHandler.parseProperty(line, record.charAt(0) == ADD ? derivedIds::add : id -> true, rejects);
+            if (property == null) {
+                continue;
+            }
+            if (record.charAt(0) == ADD) {
+                positions.put(property.getId(), properties.size());
+                properties.add(property);
+            } else {
+                long id = property.getId();
+                Integer position;
+                while ((position = positions.get(id)) != null && removed.get(position)) {
+                    id = FileHandler.nextDerivedId(id);
+                }
+                if (position != null) {
+                    removed.set(position);
+                }
+            }
+        }
+        if (removed.isEmpty()) {
+            return properties;
+        }
+        List<Property> remaining = new ArrayList<>(properties.size() - removed.cardinality());
+        for (int i = 0; i < properties.size(); i++) {
+            if (!removed.get(i)) {
+                remaining.add(properties.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+}
@@ -0,0 +1,61 @@
+package controllers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Counts rows skipped while parsing a data file. Parsers record each reject here
+// instead of printing it; report() prints one summary line per load, with the first
+// row rejected since the previous report as an example.
+public class RejectCounter {
+    private final String source;
+    private final AtomicLong malformed = new AtomicLong(); // Too few fields
+    private final AtomicLong unparseable = new AtomicLong(); // Bad number or date
+    private final AtomicLong reported = new AtomicLong();
+    private final AtomicReference<String> example = new AtomicReference<>(); // First reject since the last report
+
+    public RejectCounter(String source) {
+        this.source = source;
+    }
+
+    // A row with too few fields; the line is only decoded for the first reject
+    public void malformed(Supplier<String> line) {
+        malformed.incrementAndGet();
+        remember(line);
+    }
+
+    // A row whose numbers or date could not be parsed
+    public void unparseable(Supplier<String> line) {
+        unparseable.incrementAndGet();
+        remember(line);
+    }
+
+    public long getMalformed() {
+        return malformed.get();
+    }
+
+    public long getUnparseable() {
+        return unparseable.get();
+    }
+
+    public long getTotal() {
+        return malformed.get() + unparseable.get();
+    }
+
+    // Print a summary of the rejects recorded since the last report, if there were any
+    public void report() {
+        long total = getTotal();
+        long previous = reported.getAndSet(total);
+        String shown = example.getAndSet(null);
+        if (total > previous) {
+            System.err.println("Skipped " + (total - previous) + " rows of " + source
+                    + " (" + getMalformed() + " malformed, " + getUnparseable() + " unparseable in total), e.g.: " + shown);
+        }
+    }
+
+    private void remember(Supplier<String> line) {
+        if (example.get() == null) {
+            example.compareAndSet(null, line.get());
+        }
+    }
+}
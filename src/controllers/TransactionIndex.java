@@ -0,0 +1,281 @@
+package controllers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Hash index from case-folded scheme name to the rows of that scheme in
+// transactions.txt. Each posting list holds (epoch day, byte offset) pairs kept
+// in date order, so the newest N rows of a project are read straight off its tail.
+// Rows are also bucketed by month for date-range reads.
+//
+// The index can be saved next to the data file. The header records how many bytes
+// of the data file were indexed plus a checksum of the bytes just before that
+// point, which tells an append (only the tail needs indexing) from a rewrite.
+public class TransactionIndex {
+    private static final int MAGIC = 0x54584958; // "TXIX"
+    private static final int VERSION = 1;
+    private static final int TAIL_CHECKSUM_BYTES = 4096;
+
+    private final Map<String, Postings> schemes = new HashMap<>();
+    private final Map<Integer, Postings> months = new TreeMap<>();
+    private long indexedLength;
+    private long tailChecksum;
+    private int rowCount;
+
+    // Record a row of the given scheme found at offset
+    public void add(String scheme, int epochDay, long offset) {
+        schemes.computeIfAbsent(key(scheme), k -> new Postings()).add(epochDay, offset);
+        months.computeIfAbsent(epochMonth(epochDay), k -> new Postings()).add(epochDay, offset);
+        rowCount++;
+    }
+
+    // Byte offsets of all rows dated within [from, to], oldest first
+    public long[] offsetsBetween(LocalDate from, LocalDate to) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        long[] offsets = new long[16];
+        int count = 0;
+        for (int month = epochMonth(fromDay); month <= epochMonth(toDay); month++) {
+            Postings bucket = months.get(month);
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                if (bucket.epochDays[i] >= fromDay && bucket.epochDays[i] <= toDay) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = bucket.offsets[i];
+                }
+            }
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    // Byte offsets of the newest rows for a scheme, newest first
+    public long[] latestOffsets(String scheme, int limit) {
+        Postings postings = schemes.get(key(scheme));
+        if (postings == null) {
+            return new long[0];
+        }
+        int count = Math.min(limit, postings.size);
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = postings.offsets[postings.size - 1 - i];
+        }
+        return offsets;
+    }
+
+    // Number of bytes of the data file covered by the index
+    public long getIndexedLength() {
+        return indexedLength;
+    }
+
+    public void setIndexedLength(long indexedLength) {
+        this.indexedLength = indexedLength;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    // True if the first indexedLength bytes of the data file are still the ones this index was built from
+    public boolean matches(Path dataFile) throws IOException {
+        return Files.size(dataFile) >= indexedLength && checksumTail(dataFile, indexedLength) == tailChecksum;
+    }
+
+    // Write the index atomically: to a temp file first, then rename over the old one.
+    // The temp file has a unique name, so processes saving at once do not mix their writes.
+    public void save(Path indexFile, Path dataFile) throws IOException {
+        tailChecksum = checksumTail(dataFile, indexedLength);
+        Path temp = Files.createTempFile(indexFile.toAbsolutePath().getParent(), indexFile.getFileName().toString(), ".tmp");
+        try {
+            write(temp);
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void write(Path temp) throws IOException {
+        CRC32 crc = new CRC32();
+        try (OutputStream file = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(indexedLength);
+            out.writeInt(rowCount);
+            out.writeLong(tailChecksum);
+
+            out.writeInt(schemes.size());
+            for (Map.Entry<String, Postings> entry : schemes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+            out.writeInt(months.size());
+            for (Map.Entry<Integer, Postings> entry : months.entrySet()) {
+                out.writeInt(entry.getKey());
+                entry.getValue().write(out);
+            }
+            out.writeLong(crc.getValue()); // Trailer, not part of the checksum itself
+        }
+    }
+
+    // Read a saved index, or return null if it is missing, from another version or damaged.
+    // Counts are checked against the file's length before anything is allocated, so a
+    // damaged count means a rebuild rather than a huge array.
+    public static TransactionIndex load(Path indexFile) {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        try (InputStream file = Files.newInputStream(indexFile);
+             CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file), crc);
+             DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long fileLength = Files.size(indexFile);
+            TransactionIndex index = new TransactionIndex();
+            index.indexedLength = in.readLong();
+            if (index.indexedLength < 0) {
+                throw new IOException("negative indexed length");
+            }
+            index.rowCount = checkCount(in.readInt(), 0, fileLength);
+            index.tailChecksum = in.readLong();
+
+            int schemeCount = checkCount(in.readInt(), 0, fileLength);
+            for (int i = 0; i < schemeCount; i++) {
+                String key = in.readUTF();
+                index.schemes.put(key, Postings.read(in, fileLength));
+            }
+            int monthCount = checkCount(in.readInt(), 0, fileLength);
+            for (int i = 0; i < monthCount; i++) {
+                int month = in.readInt();
+                index.months.put(month, Postings.read(in, fileLength));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                System.err.println("Transaction index checksum mismatch, rebuilding: " + indexFile);
+                return null;
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read transaction index " + indexFile + ", rebuilding: " + e);
+            return null;
+        }
+    }
+
+    // A count of entries taking entryBytes each (at least one byte if 0) that fits in the file
+    private static int checkCount(int count, int entryBytes, long fileLength) throws IOException {
+        if (count < 0 || (long) count * Math.max(1, entryBytes) > fileLength) {
+            throw new IOException("implausible count " + count);
+        }
+        return count;
+    }
+
+    // CRC32 of the bytes just before length, used to recognise the indexed prefix of the data file
+    static long checksumTail(Path dataFile, long length) throws IOException {
+        int count = (int) Math.min(TAIL_CHECKSUM_BYTES, length);
+        ByteBuffer bytes = ByteBuffer.allocate(count);
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, length - count + bytes.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        bytes.flip();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue() ^ length;
+    }
+
+    static String key(String scheme) {
+        return scheme.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int epochMonth(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    // Date-sorted posting list for one scheme
+    static class Postings {
+        int size;
+        int[] epochDays = new int[4];
+        long[] offsets = new long[4];
+
+        void add(int epochDay, long offset) {
+            if (size == offsets.length) {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            // Rows mostly arrive in date order, so this is usually a plain append
+            int position = size;
+            if (size > 0 && epochDays[size - 1] > epochDay) {
+                position = upperBound(epochDay);
+                System.arraycopy(epochDays, position, epochDays, position + 1, size - position);
+                System.arraycopy(offsets, position, offsets, position + 1, size - position);
+            }
+            epochDays[position] = epochDay;
+            offsets[position] = offset;
+            size++;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(epochDays[i]);
+                out.writeLong(offsets[i]);
+            }
+        }
+
+        static Postings read(DataInputStream in, long fileLength) throws IOException {
+            Postings postings = new Postings();
+            postings.size = checkCount(in.readInt(), Integer.BYTES + Long.BYTES, fileLength);
+            postings.epochDays = new int[Math.max(4, postings.size)];
+            postings.offsets = new long[Math.max(4, postings.size)];
+            for (int i = 0; i < postings.size; i++) {
+                postings.epochDays[i] = in.readInt();
+                postings.offsets[i] = in.readLong();
+            }
+            return postings;
+        }
+
+        // First position whose day is strictly after epochDay
+        private int upperBound(int epochDay) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (epochDays[mid] <= epochDay) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package controllers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+import models.Transaction;
+
+// Memory-mapped scanner over the tab-separated transactions file.
+// Each call to next() locates the field boundaries of one row inside the mapped
+// buffer; fields are only decoded when a caller asks for them, so rows can be
+// filtered without building Strings or Transaction objects.
+public class TransactionScanner implements Closeable {
+
+    // Column positions in transactions.txt
+    public static final int DATE = 0;
+    public static final int SIZE_SQM = 1;
+    public static final int SQFT = 2;
+    public static final int PROPERTY_TYPE = 3;
+    public static final int NO_OF_FLOORS = 4;
+    public static final int ADDRESS = 5;
+    public static final int SCHEME = 6;
+    public static final int PRICE = 7;
+    public static final int YEAR = 8;
+    public static final int PROJECT_NAME = 9;
+    public static final int PRICE_PER_SQFT = 10;
+
+    private static final int MIN_FIELDS = 10;
+    private static final int MAX_FIELDS = 16;
+
+    // Mapping window; rows are never split across windows
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer buffer;
+    private long windowStart;
+    private int windowLimit;
+
+    private int position;
+    private int rowStart;
+    private int rowEnd;
+    private int fieldCount;
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private byte[] scratch = new byte[128];
+    private final FieldView fieldView = new FieldView();
+
+    // Opens the file and positions the scanner after the header line
+    public TransactionScanner(Path path) throws IOException {
+        this(path, -1);
+    }
+
+    // Opens the file positioned at startOffset, or after the header if startOffset is negative
+    public TransactionScanner(Path path, long startOffset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        mapWindow(Math.max(0, Math.min(startOffset, fileSize)));
+        if (startOffset < 0) {
+            skipLine();
+        }
+    }
+
+    // Advances to the next non-empty row, returning false at end of file
+    public boolean next() throws IOException {
+        while (true) {
+            boolean lastWindow = windowStart + windowLimit >= fileSize;
+            if (position >= windowLimit && lastWindow) {
+                return false;
+            }
+            int end = findLineEnd(position);
+            if (end < 0) {
+                if (lastWindow) {
+                    end = windowLimit; // Last line without a trailing newline
+                } else if (position == 0) {
+                    throw new IOException("Transaction line longer than " + WINDOW_SIZE + " bytes at offset " + windowStart);
+                } else {
+                    mapWindow(windowStart + position);
+                    continue;
+                }
+            }
+            rowStart = position;
+            rowEnd = end;
+            position = end + 1;
+            if (rowEnd > rowStart && buffer.get(rowEnd - 1) == '\r') {
+                rowEnd--;
+            }
+            if (rowEnd > rowStart) {
+                splitFields();
+                return true;
+            }
+        }
+    }
+
+    // Reposition so the next call to next() reads the row starting at offset
+    public void seek(long offset) throws IOException {
+        if (offset >= windowStart && offset < windowStart + windowLimit) {
+            position = (int) (offset - windowStart);
+        } else {
+            mapWindow(Math.min(offset, fileSize));
+        }
+    }
+
+    // Byte offset of the current row in the file
+    public long rowOffset() {
+        return windowStart + rowStart;
+    }
+
+    // Byte offset just past the current row, including its line terminator
+    public long nextRowOffset() {
+        return windowStart + Math.min(position, windowLimit);
+    }
+
+    public long fileSize() {
+        return fileSize;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // True when the row has enough columns to be parsed as a transaction
+    public boolean isWellFormed() {
+        return fieldCount >= MIN_FIELDS;
+    }
+
+    // Decodes a trimmed field as a String
+    public String field(int index) {
+        if (index >= fieldCount) {
+            return "";
+        }
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Decodes the whole current row, without the line terminator
+    public String line() {
+        int length = rowEnd - rowStart;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(rowStart + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Compares a field against an ASCII-case-insensitive value without decoding it
+    public boolean fieldEqualsIgnoreCase(int index, String value) {
+        if (index >= fieldCount) {
+            return value.isEmpty();
+        }
+        int start = fieldStarts[index];
+        int length = fieldEnds[index] - start;
+        if (length != value.length()) {
+            // Non-ASCII content cannot be compared byte-wise, fall back to decoding
+            return hasNonAscii(start, length) && field(index).equalsIgnoreCase(value);
+        }
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(start + i);
+            char c = value.charAt(i);
+            if (b < 0 || c > 0x7F) {
+                return field(index).equalsIgnoreCase(value);
+            }
+            if (b != c && toLowerAscii(b) != toLowerAscii(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Parses a date field into an epoch day, reading the bytes in place for the common formats
+    public int dateField(int index) {
+        if (index < fieldCount) {
+            fieldView.start = fieldStarts[index];
+            fieldView.end = fieldEnds[index];
+            int epochDay = DateParser.tryParseEpochDay(fieldView);
+            if (epochDay != DateParser.INVALID) {
+                return epochDay;
+            }
+        }
+        return (int) DateParser.parseWithFormatters(field(index)).toEpochDay();
+    }
+
+    // Parses a field as an int directly from the buffer
+    public int intField(int index) {
+        if (index >= fieldCount) {
+            throw new NumberFormatException("Missing field " + index);
+        }
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        if (start == end) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        boolean negative = false;
+        int i = start;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(field(index));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(field(index)); // Let the JDK produce the error
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Parses a field as an int, or returns the fallback if it is missing or not a number
+    public int intField(int index, int fallback) {
+        try {
+            return intField(index);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // Parses a field as a double; plain decimals are handled in place, anything else
+    // goes through Double.parseDouble
+    public double doubleField(int index) {
+        if (index >= fieldCount) {
+            throw new NumberFormatException("Missing field " + index);
+        }
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !seenDot) {
+                seenDot = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.parseDouble(field(index));
+            }
+            if (mantissa == 0 && digit == 0 && !seenDot) {
+                continue; // Leading zeros
+            }
+            if (++digits > 15) {
+                return Double.parseDouble(field(index));
+            }
+            mantissa = mantissa * 10 + digit;
+            if (seenDot) {
+                fractionDigits++;
+            }
+        }
+        if (end - start == (negative ? 1 : 0) + (seenDot ? 1 : 0)) {
+            return Double.parseDouble(field(index)); // No digits at all
+        }
+        // Both operands are exact doubles, so the division is correctly rounded
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    // Builds a Transaction from the current row the same way FileHandler.parseTransaction does
+    public Transaction toTransaction(LocalDate transactionDate) {
+        return new Transaction.Builder()
+                .setProjectName(field(SCHEME))
+                .setTransactionDate(transactionDate)
+                .setTransactionPrice(doubleField(PRICE))
+                .setTransactionSqFt(intField(SQFT))
+                .setSizeSqM(0)
+                .setPropertyType(field(PROPERTY_TYPE))
+                .setNoOfFloors(intField(NO_OF_FLOORS, 0))
+                .setAddress(field(ADDRESS))
+                .setScheme("")
+                .setYear(intField(YEAR, 0))
+                .setPricePerSqft(0.0)
+                .build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void mapWindow(long start) throws IOException {
+        long size = Math.min(WINDOW_SIZE, fileSize - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        windowLimit = (int) size;
+        position = 0;
+    }
+
+    private void skipLine() throws IOException {
+        while (true) {
+            int end = findLineEnd(position);
+            if (end >= 0) {
+                position = end + 1;
+                return;
+            }
+            if (windowStart + windowLimit >= fileSize) {
+                position = windowLimit;
+                return;
+            }
+            mapWindow(windowStart + position);
+        }
+    }
+
+    private int findLineEnd(int from) {
+        for (int i = from; i < windowLimit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void splitFields() {
+        fieldCount = 0;
+        int start = rowStart;
+        for (int i = rowStart; i <= rowEnd; i++) {
+            if (i == rowEnd || buffer.get(i) == '\t') {
+                if (fieldCount < MAX_FIELDS) {
+                    fieldStarts[fieldCount] = start;
+                    fieldEnds[fieldCount] = i;
+                    trimField(fieldCount);
+                }
+                fieldCount++;
+                start = i + 1;
+            }
+        }
+        fieldCount = Math.min(fieldCount, MAX_FIELDS);
+    }
+
+    private void trimField(int index) {
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        fieldStarts[index] = start;
+        fieldEnds[index] = end;
+    }
+
+    private boolean hasNonAscii(int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int toLowerAscii(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    // Reusable ASCII view of one field, so DateParser can read it without a String
+    private class FieldView implements CharSequence {
+        int start;
+        int end;
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().subSequence(from, to);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(length());
+            for (int i = start; i < end; i++) {
+                text.append((char) (buffer.get(i) & 0xFF));
+            }
+            return text.toString();
+        }
+    }
+}
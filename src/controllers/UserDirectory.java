@@ -0,0 +1,85 @@
+package controllers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import models.User;
+
+// In-memory view of users.txt keyed by username.
+// The file is read once; later lookups are a hash probe plus a stat of the file,
+// and the map is reloaded only when the file's size or modification time no longer
+// match what was last loaded (i.e. someone else edited it).
+public class UserDirectory {
+    private final Path file;
+    private final Supplier<List<User>> loader;
+    private volatile ConcurrentMap<String, User> users;
+    private volatile long loadedModified = -1;
+    private volatile long loadedSize = -1;
+
+    public UserDirectory(Path file, Supplier<List<User>> loader) {
+        this.file = file;
+        this.loader = loader;
+    }
+
+    // Look up a user by exact username, or return null
+    public User find(String username) {
+        refreshIfChanged();
+        return users.get(username);
+    }
+
+    // Record a user that was just appended to the file, without reloading it
+    public synchronized void added(User user) {
+        if (users == null) {
+            refreshIfChanged(); // Nothing cached yet, the load picks the new user up
+            return;
+        }
+        users.putIfAbsent(user.getUsername(), user);
+        rememberFileVersion();
+    }
+
+    private void refreshIfChanged() {
+        long[] version = fileVersion();
+        if (users != null && version[0] == loadedModified && version[1] == loadedSize) {
+            return;
+        }
+        synchronized (this) {
+            version = fileVersion();
+            if (users != null && version[0] == loadedModified && version[1] == loadedSize) {
+                return;
+            }
+            // The first entry for a username wins, as with the old linear scan
+            ConcurrentMap<String, User> loaded = new ConcurrentHashMap<>();
+            for (User user : loader.get()) {
+                loaded.putIfAbsent(user.getUsername(), user);
+            }
+            users = loaded;
+            loadedModified = version[0];
+            loadedSize = version[1];
+        }
+    }
+
+    private void rememberFileVersion() {
+        long[] version = fileVersion();
+        loadedModified = version[0];
+        loadedSize = version[1];
+    }
+
+    // {modified millis, size}, or {0, 0} if the file does not exist
+    private long[] fileVersion() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new long[] {attributes.lastModifiedTime().toMillis(), attributes.size()};
+        } catch (NoSuchFileException e) {
+            return new long[] {0, 0};
+        } catch (IOException e) {
+            return new long[] {loadedModified, loadedSize};
+        }
+    }
+}
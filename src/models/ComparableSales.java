@@ -0,0 +1,201 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// Comparable-sales valuation over the transaction history. Sales are partitioned by
+// scheme and property type (both case-insensitive), with a partition per type across
+// every scheme and one over all sales as fallbacks, and each partition has a k-d tree
+// over normalised features:
+//   size    ln(sqFt) / 0.1, so a 10% size difference is one unit
+//   recency epochDay / 365, so a year between sales is one unit
+//   floors  floors / 5, so five floors apart is one unit
+//   year    year / 5, so five years apart is one unit
+// Unknown floors count as 0 and an unknown year as the calendar year of the sale.
+// Types are grouped so the listing form's names meet the history's, e.g. "Apartment"
+// and "Condominium" both match "Condominium/Apartment".
+// A valuation takes the k nearest sales and averages their price per sqft,
+// weighting each by 1 / (1 + distance). Sales added after a partition's tree was
+// built are kept in a small pending list that is scanned linearly, and the tree is
+// rebuilt once that list grows past an eighth of the partition.
+// Every sale is in three partitions, so its features are stored once, in arrays
+// shared by all of them; a partition and its tree hold only row numbers.
+public class ComparableSales {
+    public static final int DEFAULT_NEIGHBOURS = 10;
+
+    private static final int DIMS = 4;
+    private static final double SIZE_SCALE = 0.1;
+    private static final double DAYS_SCALE = 365;
+    private static final double FLOORS_SCALE = 5;
+    private static final double YEAR_SCALE = 5;
+    private static final int MIN_PENDING_REBUILD = 256;
+
+    private static final Map<String, String> TYPE_GROUPS = Map.of(
+            "apartment", "condominium/apartment",
+            "condominium", "condominium/apartment",
+            "serviced residence", "condominium/apartment",
+            "bungalow", "detached house",
+            "double-storey terrace", "terraced house");
+
+    private double[] coords = new double[16 * DIMS]; // Row i occupies [i * DIMS, (i + 1) * DIMS)
+    private double[] pricesPerSqft = new double[16];
+    private int size;
+    private final Map<String, Partition> schemes = new HashMap<>(); // By scheme and type
+    private final Map<String, Partition> types = new HashMap<>();
+    private final Partition all = new Partition();
+
+    // Index every row of a store
+    public static ComparableSales fromStore(TransactionStore store) {
+        ComparableSales sales = new ComparableSales();
+        for (int row = 0; row < store.size(); row++) {
+            sales.add(store.getProjectName(row), store.getPropertyType(row), store.getEpochDay(row),
+                    store.getPrice(row), store.getSqFt(row), store.getNoOfFloors(row), store.getYear(row));
+        }
+        return sales;
+    }
+
+    // Add one sale; sales without a positive size or price are ignored
+    public synchronized void add(String scheme, String propertyType, int epochDay, double price, int sqFt,
+            int noOfFloors, int year) {
+        if (sqFt <= 0 || !(price > 0)) {
+            return;
+        }
+        if (size == pricesPerSqft.length) {
+            grow();
+        }
+        int row = size++;
+        System.arraycopy(features(epochDay, sqFt, noOfFloors, year), 0, coords, row * DIMS, DIMS);
+        pricesPerSqft[row] = price / sqFt;
+        String type = typeKey(propertyType);
+        schemes.computeIfAbsent(fold(scheme) + '\t' + type, k -> new Partition()).add(row);
+        types.computeIfAbsent(type, k -> new Partition()).add(row);
+        all.add(row);
+    }
+
+    // Trees point at the arrays they were built over, so they are dropped and rebuilt on
+    // their next query rather than keeping the old arrays alive
+    private void grow() {
+        coords = Arrays.copyOf(coords, size * 2 * DIMS);
+        pricesPerSqft = Arrays.copyOf(pricesPerSqft, size * 2);
+        for (Partition partition : schemes.values()) {
+            partition.tree = null;
+        }
+        for (Partition partition : types.values()) {
+            partition.tree = null;
+        }
+        all.tree = null;
+    }
+
+    // Suggest a price for a property of the given type and size sold on the given day,
+    // from the nearest sales of that type in the same scheme, or of that type in any
+    // scheme if it has none, or of any type as a last resort.
+    // Returns null when there is no history at all.
+    public synchronized Valuation estimate(String scheme, String propertyType, int sqFt, int noOfFloors, int year,
+            int epochDay, int neighbours) {
+        if (sqFt <= 0) {
+            return null;
+        }
+        String type = typeKey(propertyType);
+        Partition partition = schemes.get(fold(scheme) + '\t' + type);
+        boolean sameScheme = partition != null && partition.size() > 0;
+        if (!sameScheme) {
+            partition = types.get(type);
+            if (partition == null || partition.size() == 0) {
+                partition = all;
+            }
+        }
+        if (partition.size() == 0) {
+            return null;
+        }
+
+        double[] query = features(epochDay, sqFt, noOfFloors, year);
+        double weightedSum = 0;
+        double totalWeight = 0;
+        int[] nearest = partition.nearest(query, neighbours);
+        for (int row : nearest) {
+            double weight = 1 / (1 + Math.sqrt(distanceSquared(row, query)));
+            weightedSum += weight * pricesPerSqft[row];
+            totalWeight += weight;
+        }
+        double pricePerSqft = weightedSum / totalWeight;
+        return new Valuation(pricePerSqft * sqFt, pricePerSqft, nearest.length, sameScheme);
+    }
+
+    private double distanceSquared(int row, double[] query) {
+        double sum = 0;
+        for (int d = 0; d < DIMS; d++) {
+            double diff = coords[row * DIMS + d] - query[d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private static double[] features(int epochDay, int sqFt, int noOfFloors, int year) {
+        if (year <= 0) {
+            year = LocalDate.ofEpochDay(epochDay).getYear();
+        }
+        return new double[]{Math.log(sqFt) / SIZE_SCALE, epochDay / DAYS_SCALE,
+            Math.max(0, noOfFloors) / FLOORS_SCALE, year / YEAR_SCALE};
+    }
+
+    private static String typeKey(String propertyType) {
+        String type = fold(propertyType);
+        return TYPE_GROUPS.getOrDefault(type, type);
+    }
+
+    private static String fold(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Sales of one partition, as rows of the shared arrays: rows [0, treeSize) are in
+    // the tree, the rest are pending
+    private class Partition {
+        private int[] rows = new int[16];
+        private int size;
+        private KdTree tree;
+        private int treeSize;
+
+        int size() {
+            return size;
+        }
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        // The rows of the k nearest sales: tree candidates merged with a scan of the pending rows
+        int[] nearest(double[] query, int k) {
+            int pending = size - treeSize;
+            if (tree == null || pending > Math.max(MIN_PENDING_REBUILD, treeSize / 8)) {
+                tree = new KdTree(coords, DIMS, Arrays.copyOf(rows, size));
+                treeSize = size;
+                pending = 0;
+            }
+            int[] fromTree = tree.nearest(query, k);
+            if (pending == 0) {
+                return fromTree;
+            }
+            int[] candidates = Arrays.copyOf(fromTree, fromTree.length + pending);
+            System.arraycopy(rows, treeSize, candidates, fromTree.length, pending);
+            // Only k + pending candidates, so a plain sort by distance is enough
+            double[] distances = new double[candidates.length];
+            Integer[] byDistance = new Integer[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                distances[i] = distanceSquared(candidates[i], query);
+                byDistance[i] = i;
+            }
+            Arrays.sort(byDistance, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] result = new int[Math.min(k, candidates.length)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = candidates[byDistance[i]];
+            }
+            return result;
+        }
+    }
+}
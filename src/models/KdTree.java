@@ -0,0 +1,180 @@
+package models;
+
+import java.util.Arrays;
+
+// Static k-d tree over points with a fixed number of dimensions, for k-nearest-
+// neighbour queries by Euclidean distance. The tree is implicit: points are
+// reordered so that each range [lo, hi) has its splitting point at the midpoint,
+// with smaller coordinates on the split axis to the left. Point ids are the
+// positions in the coordinate array passed to the constructor; a tree may cover
+// only some of them, so several trees can share one array.
+public class KdTree {
+    private final int dims;
+    private final double[] coords; // Point i occupies [i * dims, (i + 1) * dims)
+    private final int[] order;
+
+    // The ids array is taken over and reordered
+    public KdTree(double[] coords, int dims, int[] ids) {
+        this.dims = dims;
+        this.coords = coords;
+        this.order = ids;
+        build(0, ids.length, 0);
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    // Squared distance between a stored point and a query
+    public double distanceSquared(int id, double[] query) {
+        double sum = 0;
+        for (int d = 0; d < dims; d++) {
+            double diff = coords[id * dims + d] - query[d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    // Ids of the k points nearest to the query, nearest first
+    public int[] nearest(double[] query, int k) {
+        Neighbours found = new Neighbours(Math.min(k, order.length));
+        if (found.capacity > 0) {
+            search(0, order.length, 0, query, found);
+        }
+        return found.sortedIds();
+    }
+
+    private void search(int lo, int hi, int depth, double[] query, Neighbours found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int id = order[mid];
+        found.offer(id, distanceSquared(id, query));
+
+        int axis = depth % dims;
+        double diff = query[axis] - coords[id * dims + axis];
+        if (diff < 0) {
+            search(lo, mid, depth + 1, query, found);
+            if (!found.isFull() || diff * diff < found.worst()) {
+                search(mid + 1, hi, depth + 1, query, found);
+            }
+        } else {
+            search(mid + 1, hi, depth + 1, query, found);
+            if (!found.isFull() || diff * diff < found.worst()) {
+                search(lo, mid, depth + 1, query, found);
+            }
+        }
+    }
+
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            int axis = depth % dims;
+            select(lo, hi - 1, mid, axis);
+            build(lo, mid, depth + 1);
+            lo = mid + 1;
+            depth++;
+        }
+    }
+
+    // Quickselect: reorder [lo, hi] so order[k] holds the point that belongs there by the axis coordinate
+    private void select(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            double pivot = coord(order[(lo + hi) >>> 1], axis);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coord(order[i], axis) < pivot) {
+                    i++;
+                }
+                while (coord(order[j], axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double coord(int id, int axis) {
+        return coords[id * dims + axis];
+    }
+
+    // Bounded max-heap of the best candidates seen so far
+    private static class Neighbours {
+        final int capacity;
+        final int[] ids;
+        final double[] distances;
+        int size;
+
+        Neighbours(int capacity) {
+            this.capacity = capacity;
+            this.ids = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == capacity;
+        }
+
+        double worst() {
+            return distances[0];
+        }
+
+        void offer(int id, double distance) {
+            if (size < capacity) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    ids[i] = ids[(i - 1) / 2];
+                    distances[i] = distances[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                ids[i] = id;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && distances[child + 1] > distances[child]) {
+                        child++;
+                    }
+                    if (distances[child] <= distance) {
+                        break;
+                    }
+                    ids[i] = ids[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+                ids[i] = id;
+                distances[i] = distance;
+            }
+        }
+
+        int[] sortedIds() {
+            Integer[] positions = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                positions[i] = i;
+            }
+            Arrays.sort(positions, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ids[positions[i]];
+            }
+            return result;
+        }
+    }
+}
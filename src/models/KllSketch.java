@@ -0,0 +1,212 @@
+package models;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Mergeable quantile sketch (KLL). Values are kept in a stack of levels where an
+// item on level h stands for 2^h inputs; when the sketch outgrows its budget the
+// lowest full level is sorted and every other item (random offset) is promoted,
+// so memory stays around 3k items however many values are added. Until the first
+// compaction every value is held exactly and quantiles are exact.
+public class KllSketch {
+    public static final int DEFAULT_K = 200;
+
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final double DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private long count;
+    private double[][] levels = {new double[MIN_LEVEL_CAPACITY]};
+    private int[] sizes = {0};
+    private boolean compacted;
+    private long random = 0x9E3779B97F4A7C15L; // Deterministic coin for compaction offsets
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        this.k = Math.max(MIN_LEVEL_CAPACITY, k);
+    }
+
+    // Add one value; NaN is ignored
+    public void update(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        append(0, value);
+        count++;
+        compress();
+    }
+
+    // Fold another sketch into this one
+    public void merge(KllSketch other) {
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        compacted |= other.compacted;
+        compress();
+    }
+
+    // Number of values added
+    public long getCount() {
+        return count;
+    }
+
+    // True once the sketch has started approximating
+    public boolean isEstimate() {
+        return compacted;
+    }
+
+    // Value at quantile q in [0, 1], or NaN when empty. Exact sketches interpolate
+    // between neighbours (so q = 0.5 of an even count is the mean of the middle two);
+    // approximate ones return the first retained value whose weighted rank reaches q.
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (!compacted) {
+            double[] sorted = Arrays.copyOf(levels[0], sizes[0]);
+            Arrays.sort(sorted);
+            double position = q * (sorted.length - 1);
+            int low = (int) Math.floor(position);
+            int high = Math.min(low + 1, sorted.length - 1);
+            double fraction = position - low;
+            return sorted[low] * (1 - fraction) + sorted[high] * fraction;
+        }
+
+        // Walk all levels in value order, accumulating each item's weight
+        double[][] sorted = new double[levels.length][];
+        int[] cursors = new int[levels.length];
+        for (int level = 0; level < levels.length; level++) {
+            sorted[level] = Arrays.copyOf(levels[level], sizes[level]);
+            Arrays.sort(sorted[level]);
+        }
+        double target = q * count;
+        long rank = 0;
+        double last = Double.NaN;
+        while (true) {
+            int next = -1;
+            for (int level = 0; level < sorted.length; level++) {
+                if (cursors[level] < sorted[level].length
+                        && (next < 0 || sorted[level][cursors[level]] < sorted[next][cursors[next]])) {
+                    next = level;
+                }
+            }
+            if (next < 0) {
+                return last;
+            }
+            last = sorted[next][cursors[next]++];
+            rank += 1L << next;
+            if (rank >= target) {
+                return last;
+            }
+        }
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeBoolean(compacted);
+        out.writeLong(random);
+        out.writeInt(levels.length);
+        for (int level = 0; level < levels.length; level++) {
+            out.writeInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                out.writeDouble(levels[level][i]);
+            }
+        }
+    }
+
+    public static KllSketch readFrom(ByteBuffer in) {
+        KllSketch sketch = new KllSketch(in.getInt());
+        sketch.count = in.getLong();
+        sketch.compacted = in.get() != 0;
+        sketch.random = in.getLong();
+        int levelCount = checkCount(in, in.getInt(), Integer.BYTES);
+        sketch.levels = new double[levelCount][];
+        sketch.sizes = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            int size = checkCount(in, in.getInt(), Double.BYTES);
+            sketch.levels[level] = new double[Math.max(MIN_LEVEL_CAPACITY, size)];
+            in.asDoubleBuffer().get(sketch.levels[level], 0, size);
+            in.position(in.position() + size * Double.BYTES);
+            sketch.sizes[level] = size;
+        }
+        return sketch;
+    }
+
+    // A count read from a buffer, checked against the bytes left before anything is
+    // allocated for it, so a corrupt buffer fails instead of exhausting the heap
+    static int checkCount(ByteBuffer in, int count, int entryBytes) {
+        if (count < 0 || (long) count * entryBytes > in.remaining()) {
+            throw new IllegalArgumentException("implausible count " + count);
+        }
+        return count;
+    }
+
+    private void append(int level, double value) {
+        if (level == levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            levels[level] = new double[MIN_LEVEL_CAPACITY];
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], sizes[level] * 2);
+        }
+        levels[level][sizes[level]++] = value;
+    }
+
+    // Level capacities shrink geometrically towards the bottom of the stack
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    private void compress() {
+        while (true) {
+            int retained = 0;
+            int budget = 0;
+            for (int level = 0; level < levels.length; level++) {
+                retained += sizes[level];
+                budget += capacity(level);
+            }
+            if (retained <= budget) {
+                return;
+            }
+            int level = 0;
+            while (sizes[level] < capacity(level)) {
+                level++;
+            }
+            compact(level);
+        }
+    }
+
+    // Halve one level: sort it and promote every other item to the level above.
+    // With an odd size the largest item stays behind so no weight is lost.
+    private void compact(int level) {
+        int size = sizes[level];
+        double[] items = levels[level];
+        Arrays.sort(items, 0, size);
+        int pairs = size & ~1;
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        int offset = (int) (random & 1);
+        for (int i = offset; i < pairs; i += 2) {
+            append(level + 1, items[i]);
+        }
+        if (size % 2 == 1) {
+            items[0] = items[size - 1];
+            sizes[level] = 1;
+        } else {
+            sizes[level] = 0;
+        }
+        compacted = true;
+    }
+}
@@ -0,0 +1,115 @@
+package models;
+
+import java.time.YearMonth;
+
+// One month of price statistics for a scheme, or all of them when the month is null
+public class MonthlyTrend {
+    private YearMonth month;
+    private int volume;
+    private double priceP10;
+    private double medianPrice;
+    private double priceP90;
+    private double pricePerSqftP10;
+    private double medianPricePerSqft;
+    private double pricePerSqftP90;
+    private double yearOverYearChange;
+
+    // Constructor
+    private MonthlyTrend(Builder builder) {
+        this.month = builder.month;
+        this.volume = builder.volume;
+        this.priceP10 = builder.priceP10;
+        this.medianPrice = builder.medianPrice;
+        this.priceP90 = builder.priceP90;
+        this.pricePerSqftP10 = builder.pricePerSqftP10;
+        this.medianPricePerSqft = builder.medianPricePerSqft;
+        this.pricePerSqftP90 = builder.pricePerSqftP90;
+        this.yearOverYearChange = builder.yearOverYearChange;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    // Number of transactions in the month
+    public int getVolume() {
+        return volume;
+    }
+
+    public double getPriceP10() {
+        return priceP10;
+    }
+
+    public double getMedianPrice() {
+        return medianPrice;
+    }
+
+    public double getPriceP90() {
+        return priceP90;
+    }
+
+    // The price-per-sqft figures are NaN when no transaction in the month has a square footage
+    public double getPricePerSqftP10() {
+        return pricePerSqftP10;
+    }
+
+    public double getMedianPricePerSqft() {
+        return medianPricePerSqft;
+    }
+
+    public double getPricePerSqftP90() {
+        return pricePerSqftP90;
+    }
+
+    // Change in median price against the same month a year earlier, as a fraction
+    // (0.05 = +5%); NaN when there were no sales that month
+    public double getYearOverYearChange() {
+        return yearOverYearChange;
+    }
+
+    // Builder class
+    public static class Builder {
+        private YearMonth month;
+        private int volume;
+        private double priceP10 = Double.NaN;
+        private double medianPrice = Double.NaN;
+        private double priceP90 = Double.NaN;
+        private double pricePerSqftP10 = Double.NaN;
+        private double medianPricePerSqft = Double.NaN;
+        private double pricePerSqftP90 = Double.NaN;
+        private double yearOverYearChange = Double.NaN;
+
+        public Builder setMonth(YearMonth month) {
+            this.month = month;
+            return this;
+        }
+
+        public Builder setVolume(int volume) {
+            this.volume = volume;
+            return this;
+        }
+
+        public Builder setPriceQuantiles(double p10, double median, double p90) {
+            this.priceP10 = p10;
+            this.medianPrice = median;
+            this.priceP90 = p90;
+            return this;
+        }
+
+        public Builder setPricePerSqftQuantiles(double p10, double median, double p90) {
+            this.pricePerSqftP10 = p10;
+            this.medianPricePerSqft = median;
+            this.pricePerSqftP90 = p90;
+            return this;
+        }
+
+        public Builder setYearOverYearChange(double yearOverYearChange) {
+            this.yearOverYearChange = yearOverYearChange;
+            return this;
+        }
+
+        public MonthlyTrend build() {
+            return new MonthlyTrend(this);
+        }
+    }
+}
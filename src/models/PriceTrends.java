@@ -0,0 +1,173 @@
+package models;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-scheme monthly rollups of the transaction history: volume, p10/p50/p90 of
+// price and of price per sqft, and year-over-year change in the median price.
+// Each (scheme, month) bucket holds two KLL sketches, so memory per bucket is
+// bounded however many sales it sees; the quantiles are exact until a bucket
+// passes the sketch size (a few hundred sales). add() only touches one bucket and
+// marks it stale, and its quantiles are recomputed the next time it is read.
+// Whole-scheme quantiles are merged from the monthly sketches on request.
+// Scheme names are matched ignoring case.
+public class PriceTrends {
+
+    private final Map<String, TreeMap<Integer, Bucket>> schemes = new HashMap<>();
+
+    // Build the rollups from every row of a store
+    public static PriceTrends fromStore(TransactionStore store) {
+        PriceTrends trends = new PriceTrends();
+        for (int row = 0; row < store.size(); row++) {
+            trends.add(store.getProjectName(row), store.getEpochDay(row), store.getPrice(row), store.getSqFt(row));
+        }
+        return trends;
+    }
+
+    // Fold one transaction into its scheme and month
+    public synchronized void add(String scheme, int epochDay, double price, int sqFt) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        int month = date.getYear() * 12 + date.getMonthValue() - 1;
+        schemes.computeIfAbsent(fold(scheme), k -> new TreeMap<>())
+                .computeIfAbsent(month, k -> new Bucket())
+                .add(price, sqFt);
+    }
+
+    // Monthly statistics for a scheme, oldest month first; empty if the scheme has no sales
+    public synchronized List<MonthlyTrend> getMonthlyTrends(String scheme) {
+        TreeMap<Integer, Bucket> months = schemes.get(fold(scheme));
+        List<MonthlyTrend> trends = new ArrayList<>();
+        if (months == null) {
+            return trends;
+        }
+        for (Map.Entry<Integer, Bucket> entry : months.entrySet()) {
+            int month = entry.getKey();
+            Bucket bucket = entry.getValue();
+            bucket.refresh();
+            Bucket yearAgo = months.get(month - 12);
+            double change = Double.NaN;
+            if (yearAgo != null) {
+                yearAgo.refresh();
+                if (yearAgo.price[1] != 0) {
+                    change = bucket.price[1] / yearAgo.price[1] - 1;
+                }
+            }
+            trends.add(new MonthlyTrend.Builder()
+                    .setMonth(YearMonth.of(month / 12, month % 12 + 1))
+                    .setVolume((int) bucket.prices.getCount())
+                    .setPriceQuantiles(bucket.price[0], bucket.price[1], bucket.price[2])
+                    .setPricePerSqftQuantiles(bucket.pricePerSqft[0], bucket.pricePerSqft[1], bucket.pricePerSqft[2])
+                    .setYearOverYearChange(change)
+                    .build());
+        }
+        return trends;
+    }
+
+    // Statistics over every sale of a scheme, from its monthly sketches merged into one
+    // pair; the month is null. Returns null if the scheme has no sales.
+    public synchronized MonthlyTrend getSchemeTrend(String scheme) {
+        TreeMap<Integer, Bucket> months = schemes.get(fold(scheme));
+        if (months == null) {
+            return null;
+        }
+        KllSketch prices = new KllSketch();
+        KllSketch pricesPerSqft = new KllSketch();
+        for (Bucket bucket : months.values()) {
+            prices.merge(bucket.prices);
+            pricesPerSqft.merge(bucket.pricesPerSqft);
+        }
+        return new MonthlyTrend.Builder()
+                .setVolume((int) prices.getCount())
+                .setPriceQuantiles(prices.quantile(0.1), prices.quantile(0.5), prices.quantile(0.9))
+                .setPricePerSqftQuantiles(pricesPerSqft.quantile(0.1), pricesPerSqft.quantile(0.5),
+                        pricesPerSqft.quantile(0.9))
+                .build();
+    }
+
+    // Serialize every bucket's sketches, e.g. into the transaction snapshot
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(schemes.size());
+        for (Map.Entry<String, TreeMap<Integer, Bucket>> scheme : schemes.entrySet()) {
+            byte[] name = scheme.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+            out.writeInt(scheme.getValue().size());
+            for (Map.Entry<Integer, Bucket> month : scheme.getValue().entrySet()) {
+                out.writeInt(month.getKey());
+                month.getValue().prices.writeTo(out);
+                month.getValue().pricesPerSqft.writeTo(out);
+            }
+        }
+    }
+
+    public static PriceTrends readFrom(ByteBuffer in) {
+        PriceTrends trends = new PriceTrends();
+        int schemeCount = KllSketch.checkCount(in, in.getInt(), Integer.BYTES * 2);
+        for (int s = 0; s < schemeCount; s++) {
+            byte[] name = new byte[KllSketch.checkCount(in, in.getInt(), 1)];
+            in.get(name);
+            TreeMap<Integer, Bucket> months = new TreeMap<>();
+            int monthCount = KllSketch.checkCount(in, in.getInt(), Integer.BYTES);
+            for (int m = 0; m < monthCount; m++) {
+                int month = in.getInt();
+                months.put(month, new Bucket(KllSketch.readFrom(in), KllSketch.readFrom(in)));
+            }
+            trends.schemes.put(new String(name, StandardCharsets.UTF_8), months);
+        }
+        return trends;
+    }
+
+    private static String fold(String scheme) {
+        return scheme.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Sketches for one scheme and month, with p10/p50/p90 cached until the next add
+    private static class Bucket {
+        private final KllSketch prices;
+        private final KllSketch pricesPerSqft;
+        private final double[] price = new double[3];
+        private final double[] pricePerSqft = new double[3];
+        private boolean stale = true;
+
+        Bucket() {
+            this(new KllSketch(), new KllSketch());
+        }
+
+        Bucket(KllSketch prices, KllSketch pricesPerSqft) {
+            this.prices = prices;
+            this.pricesPerSqft = pricesPerSqft;
+        }
+
+        void add(double price, int sqFt) {
+            prices.update(price);
+            if (sqFt > 0) {
+                pricesPerSqft.update(price / sqFt);
+            }
+            stale = true;
+        }
+
+        void refresh() {
+            if (stale) {
+                quantiles(prices, price);
+                quantiles(pricesPerSqft, pricePerSqft);
+                stale = false;
+            }
+        }
+
+        private static void quantiles(KllSketch sketch, double[] into) {
+            into[0] = sketch.quantile(0.1);
+            into[1] = sketch.quantile(0.5);
+            into[2] = sketch.quantile(0.9);
+        }
+    }
+}
@@ -3,11 +3,19 @@ package models;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public class Project {
+    // Per-row search tracing; false compiles the trace statements away
+    private static final boolean TRACE = false;
+
+    // Receives one summary per search; does nothing unless a listener is set
+    private static volatile Consumer<SearchStats> searchListener = stats -> { };
+
     private String projectName;
     private List<Property> properties = new ArrayList<>();
+    private PropertyIndex index = new PropertyIndex(); // Price/sqFt index over properties
 
     // Constructor
     public Project(String projectName) {
@@ -22,6 +30,13 @@ public class Project {
     // Add a property to the project
     public void addProperty(Property property) {
         properties.add(property);
+        index.add(property);
+    }
+
+    // Remove a property from the project
+    public boolean removeProperty(Property property) {
+        index.remove(property);
+        return properties.remove(property);
     }
 
     // Get all properties in the project
@@ -29,26 +44,33 @@ public class Project {
         return properties;
     }
 
+    // Set the hook that receives a summary of every search, e.g. System.out::println
+    public static void setSearchListener(Consumer<SearchStats> listener) {
+        searchListener = listener != null ? listener : stats -> { };
+    }
+
     // Search for properties based on criteria
     public List<Property> searchProperties(int minSqFt, int maxSqFt, double minPrice, double maxPrice, String facilities, String projectName) {
+        long start = System.nanoTime();
         List<Property> filteredProperties = new ArrayList<>();
+        List<Property> candidates = index.get(index.search(minSqFt, maxSqFt, minPrice, maxPrice));
     
-        // Iterate through all properties and apply filtering conditions
-        for (Property property : properties) {
-            boolean matchesSqFt = property.getSqFt() >= minSqFt && property.getSqFt() <= maxSqFt;
-            boolean matchesPrice = property.getPrice() >= minPrice && property.getPrice() <= maxPrice;
+        // The index narrows to the sqFt/price range; only those candidates are checked further
+        for (Property property : candidates) {
             boolean matchesFacilities = (facilities == null || facilities.isEmpty() || property.getPropertyType().toLowerCase().contains(facilities.toLowerCase()));
             boolean matchesProjectName = (projectName == null || projectName.isEmpty() || property.getScheme().equalsIgnoreCase(projectName));
     
-            // Debugging output
-            System.out.println("Checking property: " + property.getPropertyType() + ", " + property.getScheme());
-            System.out.println("Matches SqFt: " + matchesSqFt + ", Matches Price: " + matchesPrice);
-            System.out.println("Matches Facilities: " + matchesFacilities + ", Matches Project Name: " + matchesProjectName);
+            if (TRACE) {
+                System.out.println("Checking property: " + property.getPropertyType() + ", " + property.getScheme()
+                        + " facilities=" + matchesFacilities + " projectName=" + matchesProjectName);
+            }
     
-            if (matchesSqFt && matchesPrice && matchesFacilities && matchesProjectName) {
+            if (matchesFacilities && matchesProjectName) {
                 filteredProperties.add(property);
             }
         }
+        searchListener.accept(new SearchStats(this.projectName, candidates.size(), filteredProperties.size(),
+                System.nanoTime() - start));
         return filteredProperties;
     }
     
@@ -1,8 +1,11 @@
 package models;
 
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Property {
    
+    private long id; // Stable across reads and compactions; never 0
+    private int version; // Listing version this copy was read at, for compare-and-set purchases
     private int sizeSqM;
     private int sqFt;
     private String propertyType;
@@ -15,6 +18,8 @@ public class Property {
 
     // Constructor
     private Property(Builder builder) {
+        this.id = builder.id;
+        this.version = builder.version;
         this.sizeSqM = builder.sizeSqM;
         this.sqFt = builder.sqFt;
         this.propertyType = builder.propertyType;
@@ -28,6 +33,14 @@ public class Property {
 
 
     // Getters and setters
+    public long getId() {
+        return id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
     public int getSizeSqM() {
         return sizeSqM;
     }
@@ -66,6 +79,8 @@ public class Property {
 
     // Builder class
     public static class Builder {
+        private long id;
+        private int version;
         private int sizeSqM;
         private int sqFt;
         private String propertyType;
@@ -76,6 +91,16 @@ public class Property {
         private int year;
         private double pricePerSqft;
 
+        public Builder setId(long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder setVersion(int version) {
+            this.version = version;
+            return this;
+        }
+
         public Builder setSizeSqM(int sizeSqM) {
             this.sizeSqM = sizeSqM;
             return this;
@@ -121,7 +146,11 @@ public class Property {
             return this;
         }
 
+        // A property built without an id is a new listing and gets a random one
         public Property build() {
+            while (id == 0) {
+                id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+            }
             return new Property(this);
         }
     }
@@ -0,0 +1,435 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Range index over a set of properties on price and square footage.
+// Every property gets a slot in insertion order; the slots are kept in two primitive
+// arrays sorted by price and by sqFt, so a min/max query is two binary searches
+// plus a walk over the narrower of the two ranges, checking the other bound
+// against per-slot primitive columns. Results come back as a BitSet of slots,
+// which keeps them in insertion (list) order and lets callers AND in other filters.
+// Removed slots are reclaimed in batches: compaction renumbers the live slots densely,
+// in the same order, so a slot number is only good until the next removal.
+// Property types and schemes are dictionary-encoded with one bitmap of slots per
+// distinct value, so categorical filters are a union of a few bitmaps and an AND.
+public class PropertyIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Slot columns, indexed by slot
+    private Property[] properties = new Property[INITIAL_CAPACITY];
+    private double[] slotPrices = new double[INITIAL_CAPACITY];
+    private int[] slotSqFts = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private BitSet live = new BitSet();
+    private int liveCount;
+
+    // Sorted views; ties are ordered by slot. Removed slots stay until the next compaction.
+    private double[] sortedPrices = new double[INITIAL_CAPACITY];
+    private int[] priceSlots = new int[INITIAL_CAPACITY];
+    private int[] sortedSqFts = new int[INITIAL_CAPACITY];
+    private int[] sqFtSlots = new int[INITIAL_CAPACITY];
+    private int sortedCount;
+
+    // Categorical bitmaps, indexed by dictionary id
+    private final StringDictionary types = new StringDictionary();
+    private final StringDictionary schemes = new StringDictionary();
+    private final List<BitSet> typeSlots = new ArrayList<>();
+    private final List<BitSet> schemeSlots = new ArrayList<>();
+
+    public PropertyIndex() {
+    }
+
+    // Bulk-build the index from a list; slots follow the list order
+    public PropertyIndex(List<Property> initial) {
+        int n = initial.size();
+        ensureSlotCapacity(n);
+        ensureSortedCapacity(n);
+        for (Property property : initial) {
+            properties[slotCount] = property;
+            slotPrices[slotCount] = property.getPrice();
+            slotSqFts[slotCount] = property.getSqFt();
+            addCategories(slotCount, property);
+            slotCount++;
+        }
+        live.set(0, n);
+        liveCount = n;
+        sortedCount = n;
+
+        int[] slots = new int[n];
+        for (int i = 0; i < n; i++) {
+            slots[i] = i;
+        }
+        int[] byPrice = slots.clone();
+        sortSlots(byPrice, (a, b) -> Double.compare(slotPrices[a], slotPrices[b]));
+        sortSlots(slots, (a, b) -> Integer.compare(slotSqFts[a], slotSqFts[b]));
+        for (int i = 0; i < n; i++) {
+            priceSlots[i] = byPrice[i];
+            sortedPrices[i] = slotPrices[byPrice[i]];
+            sqFtSlots[i] = slots[i];
+            sortedSqFts[i] = slotSqFts[slots[i]];
+        }
+    }
+
+    // Number of properties currently in the index
+    public int size() {
+        return liveCount;
+    }
+
+    // Add a property after all existing ones and return its slot
+    public int add(Property property) {
+        ensureSlotCapacity(slotCount + 1);
+        ensureSortedCapacity(sortedCount + 1);
+        int slot = slotCount++;
+        double price = property.getPrice();
+        int sqFt = property.getSqFt();
+        properties[slot] = property;
+        slotPrices[slot] = price;
+        slotSqFts[slot] = sqFt;
+        live.set(slot);
+        liveCount++;
+        addCategories(slot, property);
+
+        // The new slot is the largest, so it goes after every equal key
+        int pricePosition = priceInsertionPoint(price);
+        System.arraycopy(sortedPrices, pricePosition, sortedPrices, pricePosition + 1, sortedCount - pricePosition);
+        System.arraycopy(priceSlots, pricePosition, priceSlots, pricePosition + 1, sortedCount - pricePosition);
+        sortedPrices[pricePosition] = price;
+        priceSlots[pricePosition] = slot;
+
+        int sqFtPosition = sqFtInsertionPoint(sqFt);
+        System.arraycopy(sortedSqFts, sqFtPosition, sortedSqFts, sqFtPosition + 1, sortedCount - sqFtPosition);
+        System.arraycopy(sqFtSlots, sqFtPosition, sqFtSlots, sqFtPosition + 1, sortedCount - sqFtPosition);
+        sortedSqFts[sqFtPosition] = sqFt;
+        sqFtSlots[sqFtPosition] = slot;
+
+        sortedCount++;
+        return slot;
+    }
+
+    // Remove the earliest-added occurrence of this exact property, as List.remove would.
+    // Returns false if it is not in the index.
+    public boolean remove(Property property) {
+        int slot = slotOf(property);
+        if (slot < 0) {
+            return false;
+        }
+        live.clear(slot);
+        typeSlots.get(types.idOf(valueOf(property.getPropertyType()))).clear(slot);
+        schemeSlots.get(schemes.idOf(valueOf(property.getScheme()))).clear(slot);
+        properties[slot] = null;
+        liveCount--;
+        if (sortedCount - liveCount > Math.max(INITIAL_CAPACITY, liveCount)) {
+            compact();
+        }
+        return true;
+    }
+
+    // Slot of the earliest live occurrence of this exact property, or -1
+    public int slotOf(Property property) {
+        double price = property.getPrice();
+        for (int i = priceLowerBound(price); i < sortedCount && Double.compare(sortedPrices[i], price) == 0; i++) {
+            int slot = priceSlots[i];
+            if (properties[slot] == property && live.get(slot)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public Property get(int slot) {
+        return properties[slot];
+    }
+
+    // All live slots
+    public BitSet all() {
+        return (BitSet) live.clone();
+    }
+
+    // Slots of properties with minSqFt <= sqFt <= maxSqFt and minPrice <= price <= maxPrice
+    public BitSet search(int minSqFt, int maxSqFt, double minPrice, double maxPrice) {
+        BitSet matches = new BitSet(slotCount);
+        int priceFrom = firstPriceAtLeast(minPrice);
+        int priceTo = firstPriceAbove(maxPrice);
+        int sqFtFrom = firstSqFtAtLeast(minSqFt);
+        int sqFtTo = firstSqFtAbove(maxSqFt);
+        if (priceFrom >= priceTo || sqFtFrom >= sqFtTo) {
+            return matches;
+        }
+
+        // Walk the narrower range and check the other bound from the slot columns
+        if (priceTo - priceFrom <= sqFtTo - sqFtFrom) {
+            for (int i = priceFrom; i < priceTo; i++) {
+                int slot = priceSlots[i];
+                int sqFt = slotSqFts[slot];
+                if (sqFt >= minSqFt && sqFt <= maxSqFt) {
+                    matches.set(slot);
+                }
+            }
+        } else {
+            for (int i = sqFtFrom; i < sqFtTo; i++) {
+                int slot = sqFtSlots[i];
+                double price = slotPrices[slot];
+                if (price >= minPrice && price <= maxPrice) {
+                    matches.set(slot);
+                }
+            }
+        }
+        matches.and(live);
+        return matches;
+    }
+
+    // Slots whose property type satisfies the test, e.g. type::equalsIgnoreCase
+    public BitSet whereType(Predicate<String> test) {
+        return union(types, typeSlots, test);
+    }
+
+    // Slots whose scheme satisfies the test
+    public BitSet whereScheme(Predicate<String> test) {
+        return union(schemes, schemeSlots, test);
+    }
+
+    // Distinct schemes that still have at least one property, straight from the dictionary
+    public List<String> schemeNames() {
+        List<String> names = new ArrayList<>();
+        for (int id = 0; id < schemes.size(); id++) {
+            if (!schemeSlots.get(id).isEmpty()) {
+                names.add(schemes.get(id));
+            }
+        }
+        return names;
+    }
+
+    // Properties for a set of slots, in slot order
+    public List<Property> get(BitSet slots) {
+        List<Property> result = new ArrayList<>(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            result.add(properties[slot]);
+        }
+        return result;
+    }
+
+    private static BitSet union(StringDictionary dictionary, List<BitSet> bitmaps, Predicate<String> test) {
+        BitSet slots = new BitSet();
+        for (int id = 0; id < dictionary.size(); id++) {
+            if (test.test(dictionary.get(id))) {
+                slots.or(bitmaps.get(id));
+            }
+        }
+        return slots;
+    }
+
+    private void addCategories(int slot, Property property) {
+        bitmap(typeSlots, types.intern(valueOf(property.getPropertyType()))).set(slot);
+        bitmap(schemeSlots, schemes.intern(valueOf(property.getScheme()))).set(slot);
+    }
+
+    private static BitSet bitmap(List<BitSet> bitmaps, int id) {
+        if (id == bitmaps.size()) {
+            bitmaps.add(new BitSet());
+        }
+        return bitmaps.get(id);
+    }
+
+    private static String valueOf(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Renumber the live slots 0..liveCount-1 in their existing order, so the columns and
+    // bitmaps shrink back, and drop removed slots from the sorted arrays. Renumbering
+    // keeps slot order, so the sorted arrays stay ordered with ties by slot.
+    private void compact() {
+        int[] renumbered = new int[slotCount];
+        int next = 0;
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            renumbered[slot] = next;
+            properties[next] = properties[slot];
+            slotPrices[next] = slotPrices[slot];
+            slotSqFts[next] = slotSqFts[slot];
+            next++;
+        }
+        Arrays.fill(properties, next, slotCount, null);
+        slotCount = next;
+
+        int prices = 0;
+        int sqFts = 0;
+        for (int i = 0; i < sortedCount; i++) {
+            if (live.get(priceSlots[i])) {
+                sortedPrices[prices] = sortedPrices[i];
+                priceSlots[prices++] = renumbered[priceSlots[i]];
+            }
+            if (live.get(sqFtSlots[i])) {
+                sortedSqFts[sqFts] = sortedSqFts[i];
+                sqFtSlots[sqFts++] = renumbered[sqFtSlots[i]];
+            }
+        }
+        sortedCount = prices;
+        shrinkCapacity(Math.max(INITIAL_CAPACITY, slotCount * 2));
+
+        // Fresh bitmaps, since a cleared BitSet keeps its words
+        live = new BitSet(slotCount);
+        live.set(0, slotCount);
+        typeSlots.replaceAll(bitmap -> new BitSet());
+        schemeSlots.replaceAll(bitmap -> new BitSet());
+        for (int slot = 0; slot < slotCount; slot++) {
+            addCategories(slot, properties[slot]);
+        }
+    }
+
+    // Binary searches over the sorted arrays. Query bounds use plain comparisons so
+    // they agree with a linear scan; NaN prices sort last and never match.
+    private int firstPriceAtLeast(double min) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstPriceAbove(double max) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int priceLowerBound(double price) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(sortedPrices[mid], price) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int priceInsertionPoint(double price) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(sortedPrices[mid], price) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstSqFtAtLeast(int min) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedSqFts[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstSqFtAbove(int max) {
+        int low = 0;
+        int high = sortedCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedSqFts[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int sqFtInsertionPoint(int sqFt) {
+        return firstSqFtAbove(sqFt);
+    }
+
+    private void ensureSlotCapacity(int capacity) {
+        if (capacity > properties.length) {
+            int newCapacity = Math.max(capacity, properties.length * 2);
+            properties = Arrays.copyOf(properties, newCapacity);
+            slotPrices = Arrays.copyOf(slotPrices, newCapacity);
+            slotSqFts = Arrays.copyOf(slotSqFts, newCapacity);
+        }
+    }
+
+    private void ensureSortedCapacity(int capacity) {
+        if (capacity > sortedPrices.length) {
+            int newCapacity = Math.max(capacity, sortedPrices.length * 2);
+            sortedPrices = Arrays.copyOf(sortedPrices, newCapacity);
+            priceSlots = Arrays.copyOf(priceSlots, newCapacity);
+            sortedSqFts = Arrays.copyOf(sortedSqFts, newCapacity);
+            sqFtSlots = Arrays.copyOf(sqFtSlots, newCapacity);
+        }
+    }
+
+    private void shrinkCapacity(int capacity) {
+        if (capacity < properties.length) {
+            properties = Arrays.copyOf(properties, capacity);
+            slotPrices = Arrays.copyOf(slotPrices, capacity);
+            slotSqFts = Arrays.copyOf(slotSqFts, capacity);
+        }
+        if (capacity < sortedPrices.length) {
+            sortedPrices = Arrays.copyOf(sortedPrices, capacity);
+            priceSlots = Arrays.copyOf(priceSlots, capacity);
+            sortedSqFts = Arrays.copyOf(sortedSqFts, capacity);
+            sqFtSlots = Arrays.copyOf(sqFtSlots, capacity);
+        }
+    }
+
+    private interface SlotComparator {
+        int compare(int a, int b);
+    }
+
+    // Stable merge sort of slot numbers, so equal keys keep ascending slot order
+    private static void sortSlots(int[] slots, SlotComparator comparator) {
+        int[] buffer = new int[slots.length];
+        for (int width = 1; width < slots.length; width *= 2) {
+            for (int from = 0; from < slots.length - width; from += 2 * width) {
+                int mid = from + width;
+                int to = Math.min(from + 2 * width, slots.length);
+                if (comparator.compare(slots[mid - 1], slots[mid]) <= 0) {
+                    continue; // Already in order
+                }
+                int left = from;
+                int right = mid;
+                int out = from;
+                while (left < mid && right < to) {
+                    buffer[out++] = comparator.compare(slots[right], slots[left]) < 0 ? slots[right++] : slots[left++];
+                }
+                while (left < mid) {
+                    buffer[out++] = slots[left++];
+                }
+                while (right < to) {
+                    buffer[out++] = slots[right++];
+                }
+                System.arraycopy(buffer, from, slots, from, to - from);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package models;
+
+// Summary of one property search, emitted once per search instead of per-row logging
+public class SearchStats {
+    private final String projectName;
+    private final int rowsScanned;
+    private final int rowsMatched;
+    private final long elapsedNanos;
+
+    public SearchStats(String projectName, int rowsScanned, int rowsMatched, long elapsedNanos) {
+        this.projectName = projectName;
+        this.rowsScanned = rowsScanned;
+        this.rowsMatched = rowsMatched;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    // Rows examined after the range index narrowed the candidates
+    public int getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public int getRowsMatched() {
+        return rowsMatched;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("search %s: scanned=%d matched=%d elapsed=%.3fms",
+                projectName, rowsScanned, rowsMatched, elapsedNanos / 1e6);
+    }
+}
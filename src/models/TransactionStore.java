@@ -0,0 +1,323 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+// Column-oriented, primitive-backed holder for the transaction history.
+// Each row costs a handful of array slots instead of a Transaction object with a
+// LocalDate and several Strings; repeated scheme names, addresses and property types are
+// dictionary-encoded. Transaction objects are only built on demand by get().
+public class TransactionStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] sqFts = new int[INITIAL_CAPACITY];
+    private int[] projectIds = new int[INITIAL_CAPACITY];
+    private int[] addressIds = new int[INITIAL_CAPACITY];
+    private int[] typeIds = new int[INITIAL_CAPACITY];
+    private int[] floors = new int[INITIAL_CAPACITY];
+    private int[] years = new int[INITIAL_CAPACITY];
+    private final StringDictionary projects = new StringDictionary();
+    private final StringDictionary addresses = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+    private boolean sortedByDate = true;
+    private long sourceLength; // Bytes of the source file the loaded rows came from
+
+    // Rebuild a store from whole columns, e.g. when reading a binary snapshot.
+    // The arrays are adopted, not copied.
+    public static TransactionStore fromColumns(int size, int[] epochDays, double[] prices, int[] sqFts,
+            int[] projectIds, int[] addressIds, int[] typeIds, int[] floors, int[] years,
+            List<String> projectNames, List<String> addressNames, List<String> typeNames) {
+        TransactionStore store = new TransactionStore();
+        store.size = size;
+        store.epochDays = epochDays;
+        store.prices = prices;
+        store.sqFts = sqFts;
+        store.projectIds = projectIds;
+        store.addressIds = addressIds;
+        store.typeIds = typeIds;
+        store.floors = floors;
+        store.years = years;
+        for (String name : projectNames) {
+            store.projects.intern(name);
+        }
+        for (String address : addressNames) {
+            store.addresses.intern(address);
+        }
+        for (String type : typeNames) {
+            store.types.intern(type);
+        }
+        for (int row = 1; row < size && store.sortedByDate; row++) {
+            store.sortedByDate = epochDays[row - 1] <= epochDays[row];
+        }
+        return store;
+    }
+
+    // Merge parts loaded from consecutive ranges of the file into one date-sorted store.
+    // Each part is sorted, then a k-way merge takes the earliest date next, breaking ties
+    // by part order. Dictionary ids are re-interned part by part, so both the row order
+    // and the ids match loading every row into a single store and sorting it.
+    public static TransactionStore mergeSorted(List<TransactionStore> parts) {
+        int total = 0;
+        int[][] projectRemap = new int[parts.size()][];
+        int[][] addressRemap = new int[parts.size()][];
+        int[][] typeRemap = new int[parts.size()][];
+        TransactionStore merged = new TransactionStore();
+        for (int p = 0; p < parts.size(); p++) {
+            TransactionStore part = parts.get(p);
+            part.sortByDate();
+            total += part.size;
+            projectRemap[p] = remap(part.projects, merged.projects);
+            addressRemap[p] = remap(part.addresses, merged.addresses);
+            typeRemap[p] = remap(part.types, merged.types);
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, total);
+        merged.epochDays = new int[capacity];
+        merged.prices = new double[capacity];
+        merged.sqFts = new int[capacity];
+        merged.projectIds = new int[capacity];
+        merged.addressIds = new int[capacity];
+        merged.typeIds = new int[capacity];
+        merged.floors = new int[capacity];
+        merged.years = new int[capacity];
+
+        // Min-heap of part numbers ordered by (date of the part's next row, part number)
+        int[] cursors = new int[parts.size()];
+        int[] heap = new int[parts.size()];
+        int heapSize = 0;
+        for (int p = 0; p < parts.size(); p++) {
+            if (parts.get(p).size > 0) {
+                heap[heapSize++] = p;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, parts, cursors);
+        }
+        while (heapSize > 0) {
+            int p = heap[0];
+            TransactionStore part = parts.get(p);
+            int row = cursors[p]++;
+            int out = merged.size++;
+            merged.epochDays[out] = part.epochDays[row];
+            merged.prices[out] = part.prices[row];
+            merged.sqFts[out] = part.sqFts[row];
+            merged.projectIds[out] = projectRemap[p][part.projectIds[row]];
+            merged.addressIds[out] = addressRemap[p][part.addressIds[row]];
+            merged.typeIds[out] = typeRemap[p][part.typeIds[row]];
+            merged.floors[out] = part.floors[row];
+            merged.years[out] = part.years[row];
+            if (cursors[p] == part.size) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, 0, parts, cursors);
+        }
+        return merged;
+    }
+
+    // Append a row and return its index; noOfFloors and year are 0 when unknown
+    public int add(int epochDay, double price, int sqFt, String projectName, String address,
+            String propertyType, int noOfFloors, int year) {
+        if (size == epochDays.length) {
+            grow();
+        }
+        if (size > 0 && epochDay < epochDays[size - 1]) {
+            sortedByDate = false;
+        }
+        epochDays[size] = epochDay;
+        prices[size] = price;
+        sqFts[size] = sqFt;
+        projectIds[size] = projects.intern(projectName);
+        addressIds[size] = addresses.intern(address);
+        typeIds[size] = types.intern(propertyType);
+        floors[size] = noOfFloors;
+        years[size] = year;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getSourceLength() {
+        return sourceLength;
+    }
+
+    public void setSourceLength(long sourceLength) {
+        this.sourceLength = sourceLength;
+    }
+
+    public int getEpochDay(int row) {
+        return epochDays[row];
+    }
+
+    public LocalDate getDate(int row) {
+        return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    public double getPrice(int row) {
+        return prices[row];
+    }
+
+    public int getSqFt(int row) {
+        return sqFts[row];
+    }
+
+    public int getProjectId(int row) {
+        return projectIds[row];
+    }
+
+    public String getProjectName(int row) {
+        return projects.get(projectIds[row]);
+    }
+
+    public int getAddressId(int row) {
+        return addressIds[row];
+    }
+
+    public String getAddress(int row) {
+        return addresses.get(addressIds[row]);
+    }
+
+    public int getTypeId(int row) {
+        return typeIds[row];
+    }
+
+    public String getPropertyType(int row) {
+        return types.get(typeIds[row]);
+    }
+
+    public int getNoOfFloors(int row) {
+        return floors[row];
+    }
+
+    public int getYear(int row) {
+        return years[row];
+    }
+
+    public StringDictionary getProjects() {
+        return projects;
+    }
+
+    public StringDictionary getAddresses() {
+        return addresses;
+    }
+
+    public StringDictionary getTypes() {
+        return types;
+    }
+
+    // Build a Transaction for one row, populated like FileHandler's parser does
+    public Transaction get(int row) {
+        return new Transaction.Builder()
+                .setProjectName(getProjectName(row))
+                .setTransactionDate(getDate(row))
+                .setTransactionPrice(prices[row])
+                .setTransactionSqFt(sqFts[row])
+                .setSizeSqM(0)
+                .setPropertyType(getPropertyType(row))
+                .setNoOfFloors(floors[row])
+                .setAddress(getAddress(row))
+                .setScheme("")
+                .setYear(years[row])
+                .setPricePerSqft(0.0)
+                .build();
+    }
+
+    // Stable sort of all columns by date; a no-op when rows were appended in order
+    public void sortByDate() {
+        if (sortedByDate) {
+            return;
+        }
+        // Pack (day, row) into one long so a primitive sort keeps ties in row order
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = ((long) epochDays[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        int[] sortedDays = new int[epochDays.length];
+        double[] sortedPrices = new double[prices.length];
+        int[] sortedSqFts = new int[sqFts.length];
+        int[] sortedProjects = new int[projectIds.length];
+        int[] sortedAddresses = new int[addressIds.length];
+        int[] sortedTypes = new int[typeIds.length];
+        int[] sortedFloors = new int[floors.length];
+        int[] sortedYears = new int[years.length];
+        for (int i = 0; i < size; i++) {
+            int row = (int) keys[i];
+            sortedDays[i] = epochDays[row];
+            sortedPrices[i] = prices[row];
+            sortedSqFts[i] = sqFts[row];
+            sortedProjects[i] = projectIds[row];
+            sortedAddresses[i] = addressIds[row];
+            sortedTypes[i] = typeIds[row];
+            sortedFloors[i] = floors[row];
+            sortedYears[i] = years[row];
+        }
+        epochDays = sortedDays;
+        prices = sortedPrices;
+        sqFts = sortedSqFts;
+        projectIds = sortedProjects;
+        addressIds = sortedAddresses;
+        typeIds = sortedTypes;
+        floors = sortedFloors;
+        years = sortedYears;
+        sortedByDate = true;
+    }
+
+    public boolean isSortedByDate() {
+        return sortedByDate;
+    }
+
+    private static int[] remap(StringDictionary from, StringDictionary to) {
+        int[] ids = new int[from.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = to.intern(from.get(id));
+        }
+        return ids;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int i, List<TransactionStore> parts, int[] cursors) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && before(heap[left], heap[smallest], parts, cursors)) {
+                smallest = left;
+            }
+            if (right < heapSize && before(heap[right], heap[smallest], parts, cursors)) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            int swap = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = swap;
+            i = smallest;
+        }
+    }
+
+    // True if part a's next row sorts before part b's
+    private static boolean before(int a, int b, List<TransactionStore> parts, int[] cursors) {
+        int dayA = parts.get(a).epochDays[cursors[a]];
+        int dayB = parts.get(b).epochDays[cursors[b]];
+        return dayA != dayB ? dayA < dayB : a < b;
+    }
+
+    private void grow() {
+        int capacity = Math.max(INITIAL_CAPACITY, epochDays.length * 2);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        sqFts = Arrays.copyOf(sqFts, capacity);
+        projectIds = Arrays.copyOf(projectIds, capacity);
+        addressIds = Arrays.copyOf(addressIds, capacity);
+        typeIds = Arrays.copyOf(typeIds, capacity);
+        floors = Arrays.copyOf(floors, capacity);
+        years = Arrays.copyOf(years, capacity);
+    }
+}
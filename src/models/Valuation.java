@@ -0,0 +1,34 @@
+package models;
+
+// Price suggested from comparable sales
+public class Valuation {
+    private final double suggestedPrice;
+    private final double pricePerSqft;
+    private final int comparableCount;
+    private final boolean sameScheme;
+
+    public Valuation(double suggestedPrice, double pricePerSqft, int comparableCount, boolean sameScheme) {
+        this.suggestedPrice = suggestedPrice;
+        this.pricePerSqft = pricePerSqft;
+        this.comparableCount = comparableCount;
+        this.sameScheme = sameScheme;
+    }
+
+    public double getSuggestedPrice() {
+        return suggestedPrice;
+    }
+
+    public double getPricePerSqft() {
+        return pricePerSqft;
+    }
+
+    // Number of historical sales the suggestion is based on
+    public int getComparableCount() {
+        return comparableCount;
+    }
+
+    // False when the scheme had no usable sales of the type and comps came from other schemes
+    public boolean isSameScheme() {
+        return sameScheme;
+    }
+}
@@ -6,54 +6,81 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
-import java.awt.Image;
+import java.awt.GridLayout;
 import java.awt.Insets;
 import java.awt.Toolkit;
-import java.io.File;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import javax.swing.BorderFactory;
-import javax.swing.Box;
-import javax.swing.BoxLayout;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.DefaultListModel;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.text.AbstractDocument;
 
 import controllers.FileHandler;
+import controllers.ListingRegistry;
+import controllers.ListingTable;
+import controllers.LoadMonitor;
+import models.MonthlyTrend;
 import models.Property;
+import models.PropertyIndex;
 import models.Transaction;
 import models.User;
 
 public class HomeFinderApp extends JFrame {
 
+    // Property thumbnails shared by every list, bounded by decoded size
+    private static final ImageCache IMAGE_CACHE = new ImageCache(32L * 1024 * 1024);
+
     private User loggedInUser;
     private FileHandler fileHandler;
     private List<Property> allProperties;
+    private PropertyIndex propertyIndex; // Price/sqFt index over allProperties, kept in step with it
+    private final List<JButton> listingButtons = new ArrayList<>(); // Enabled once the listing has loaded
+
+    // Other processes' new listings and sales are picked up from the shared listing table
+    private static final int LISTING_POLL_MILLIS = 1000;
+    private final Timer listingPoller = new Timer(LISTING_POLL_MILLIS, e -> pollListingChanges());
+    private long listingSequence; // Shared-table sequence that allProperties is current as of
+    private boolean listingPollPending;
 
     public HomeFinderApp(User user) {
         this.loggedInUser = user;
         this.fileHandler = FileHandler.getInstance();
-        this.allProperties = fileHandler.readProperties();
+        this.allProperties = new ArrayList<>();
+        this.propertyIndex = new PropertyIndex();
 
         // Set up the main frame
-        setTitle("Home Finder - " + (loggedInUser.getRole() == User.Role.SELLER ? "Seller" : "Buyer"));
+        String title = "Home Finder - " + (loggedInUser.getRole() == User.Role.SELLER ? "Seller" : "Buyer");
+        setTitle(title + " (loading properties...)");
         setSize(600, 700);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new GridBagLayout());
@@ -103,6 +130,90 @@ public class HomeFinderApp extends JFrame {
 
         setLocationRelativeTo(null); // Center the frame
         setVisible(true);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                listingPoller.stop();
+            }
+        });
+        loadProperties(title);
+    }
+
+    // Read the listing off the EDT so the frame shows up straight away. The shared-table
+    // sequence is taken first, so changes made while the listing is read are not missed.
+    private void loadProperties(String title) {
+        CompletableFuture<Long> sequence = fileHandler.getListingSequenceAsync();
+        sequence.thenCompose(ignored -> fileHandler.readPropertiesAsync()).whenComplete((properties, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                setTitle(title);
+                JOptionPane.showMessageDialog(this, "Failed to load properties.", "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            allProperties = properties;
+            propertyIndex = new PropertyIndex(allProperties);
+            setTitle(title);
+            for (JButton button : listingButtons) {
+                button.setEnabled(true);
+            }
+            listingSequence = sequence.join();
+            if (isDisplayable()) {
+                listingPoller.start();
+            }
+        }));
+    }
+
+    // Fetch what changed in the shared listing, if anything, off the EDT; even the
+    // sequence check may have to open the table
+    private void pollListingChanges() {
+        if (listingPollPending) {
+            return;
+        }
+        listingPollPending = true;
+        long since = listingSequence;
+        fileHandler.getListingSequenceAsync()
+                .thenCompose(sequence -> sequence == since
+                        ? CompletableFuture.<ListingTable.Changes>completedFuture(null)
+                        : fileHandler.getListingChangesAsync(since))
+                .whenComplete((changes, error) -> SwingUtilities.invokeLater(() -> {
+                    listingPollPending = false;
+                    if (error != null) {
+                        error.printStackTrace();
+                        listingPoller.stop();
+                        return;
+                    }
+                    if (changes != null) {
+                        applyListingChanges(changes);
+                    }
+                }));
+    }
+
+    // Bring allProperties and its index in step with the shared listing. Changes made
+    // from this window come back here as well and are already applied.
+    private void applyListingChanges(ListingTable.Changes changes) {
+        listingSequence = changes.getSequence();
+        if (changes.isReset()) {
+            allProperties = new ArrayList<>(changes.getListed());
+            propertyIndex = new PropertyIndex(allProperties);
+            return;
+        }
+        Set<Long> removed = new HashSet<>(changes.getRemoved());
+        Map<Long, Property> listed = new LinkedHashMap<>();
+        for (Property property : changes.getListed()) {
+            listed.put(property.getId(), property);
+        }
+        for (Property property : allProperties) {
+            listed.remove(property.getId());
+            if (removed.contains(property.getId())) {
+                propertyIndex.remove(property);
+            }
+        }
+        allProperties.removeIf(property -> removed.contains(property.getId()));
+        for (Property property : listed.values()) {
+            allProperties.add(property);
+            propertyIndex.add(property);
+        }
     }
 
     private void setupSellerUI(GridBagConstraints gbc) {
@@ -124,6 +235,8 @@ public class HomeFinderApp extends JFrame {
 
         // Action listeners for Seller buttons
         addPropertyButton.addActionListener(e -> openAddPropertyDialog());
+        addPropertyButton.setEnabled(false);
+        listingButtons.add(addPropertyButton);
 
         // Add Seller-specific buttons to the frame
         gbc.gridy++;
@@ -154,6 +267,10 @@ public class HomeFinderApp extends JFrame {
         searchPropertiesButton.addActionListener(e -> openPropertySearchUI());
         viewTransactionsButton.addActionListener(e -> viewBuyerTransactions());
         displayAllPropertiesButton.addActionListener(e -> displayAllProperties()); // New action listener
+        searchPropertiesButton.setEnabled(false);
+        displayAllPropertiesButton.setEnabled(false);
+        listingButtons.add(searchPropertiesButton);
+        listingButtons.add(displayAllPropertiesButton);
 
         // Add Buyer-specific buttons to the frame
         gbc.gridy++;
@@ -173,22 +290,8 @@ public class HomeFinderApp extends JFrame {
         propertiesDialog.setLayout(new BorderLayout());
         propertiesDialog.setLocationRelativeTo(this);
 
-        // Container for all property panels
-        JPanel propertiesPanel = new JPanel();
-        propertiesPanel.setLayout(new BoxLayout(propertiesPanel, BoxLayout.Y_AXIS));
-        propertiesPanel.setBackground(new Color(210, 225, 240)); // Light blue background
-
-        // Add each property to the propertiesPanel
-        for (Property property : allProperties) {
-            JPanel propertyPanel = createPropertyPanel(property);
-            propertiesPanel.add(propertyPanel);
-            propertiesPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Spacer between panels
-        }
-
-        // Scroll pane for the properties panel
-        JScrollPane scrollPane = new JScrollPane(propertiesPanel);
-        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        // Scrollable list of all properties
+        JScrollPane scrollPane = createPropertyList(allProperties, null);
 
         // Add a close button at the bottom
         JPanel buttonPanel = new JPanel();
@@ -212,7 +315,7 @@ public class HomeFinderApp extends JFrame {
     // Seller functionality: Open dialog to add a new property
     private void openAddPropertyDialog() {
         JDialog addDialog = new JDialog(this, "Add New Property", true);
-        addDialog.setSize(400, 600);
+        addDialog.setSize(400, 650);
         addDialog.setLayout(new GridBagLayout());
         addDialog.getContentPane().setBackground(new Color(5, 33, 67)); // Background color
         addDialog.setResizable(false); // Fixed size
@@ -254,6 +357,61 @@ public class HomeFinderApp extends JFrame {
         gbc.gridy = 10;
         gbc.gridwidth = 2;
         gbc.fill = GridBagConstraints.HORIZONTAL;
+        JButton suggestButton = new JButton("Suggest Price");
+        suggestButton.setBackground(new Color(23, 76, 124));
+        suggestButton.setForeground(Color.WHITE);
+        suggestButton.setFont(new Font("Arial", Font.BOLD, 14));
+        suggestButton.setFocusPainted(false);
+        addDialog.add(suggestButton, gbc);
+
+        // Fill price and price per sqft from the nearest comparable sales. The first
+        // suggestion may load the sales history, which is abandoned if the dialog closes.
+        LoadMonitor suggestMonitor = new LoadMonitor(null);
+        addDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                suggestMonitor.cancel();
+            }
+        });
+        suggestButton.addActionListener(e -> {
+            int sqFt;
+            try {
+                sqFt = Integer.parseInt(sqFtField.getText());
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(addDialog, "Please enter the size in sqft first.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // Floors and year are optional here; blank ones are left to the estimate
+            int noOfFloors = parseOptionalInt(noOfFloorsField.getText());
+            int year = parseOptionalInt(yearField.getText());
+            suggestButton.setEnabled(false);
+            suggestButton.setText("Loading sales history...");
+            fileHandler.suggestPriceAsync(schemeField.getText().trim(), (String) propertyTypeComboBox.getSelectedItem(),
+                    sqFt, noOfFloors, year, suggestMonitor)
+                    .whenComplete((valuation, error) -> SwingUtilities.invokeLater(() -> {
+                        suggestButton.setEnabled(true);
+                        suggestButton.setText("Suggest Price");
+                        if (suggestMonitor.isCancelled()) {
+                            return;
+                        }
+                        if (error != null) {
+                            error.printStackTrace();
+                            JOptionPane.showMessageDialog(addDialog, "Could not load the sales history.", "Error", JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
+                        if (valuation == null) {
+                            JOptionPane.showMessageDialog(addDialog, "No comparable sales found.", "Suggest Price", JOptionPane.INFORMATION_MESSAGE);
+                            return;
+                        }
+                        priceField.setText(String.valueOf(Math.round(valuation.getSuggestedPrice())));
+                        pricePerSqFtField.setText(String.valueOf(Math.round(valuation.getPricePerSqft())));
+                        if (!valuation.isSameScheme()) {
+                            JOptionPane.showMessageDialog(addDialog, "No sales of this type found for this project; the suggestion uses comparable sales from other projects.", "Suggest Price", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                    }));
+        });
+
+        gbc.gridy = 11;
         JButton addButton = new JButton("Add Property");
         addButton.setBackground(new Color(23, 76, 124));
         addButton.setForeground(Color.WHITE);
@@ -287,11 +445,19 @@ public class HomeFinderApp extends JFrame {
                         .setPricePerSqft(pricePerSqFt)
                         .build();
 
-                allProperties.add(newProperty);
-                fileHandler.writeProperty(newProperty);
-
-                JOptionPane.showMessageDialog(addDialog, "Property added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                addDialog.dispose();
+                addButton.setEnabled(false);
+                fileHandler.writePropertyAsync(newProperty).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        error.printStackTrace();
+                        addButton.setEnabled(true);
+                        JOptionPane.showMessageDialog(addDialog, "Failed to save the property.", "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    allProperties.add(newProperty);
+                    propertyIndex.add(newProperty);
+                    JOptionPane.showMessageDialog(addDialog, "Property added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                    addDialog.dispose();
+                }));
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(addDialog, "Please enter valid numbers in the numeric fields.", "Input Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -364,7 +530,7 @@ public class HomeFinderApp extends JFrame {
                 String projectName = (String) projectNameComboBox.getSelectedItem();
     
                 // Filter properties based on criteria
-                List<Property> results = filterProperties(allProperties, minSqFt, maxSqFt, minPrice, maxPrice, propertyType, projectName);
+                List<Property> results = filterProperties(minSqFt, maxSqFt, minPrice, maxPrice, propertyType, projectName);
     
                 // Open a new dialog to show results with a larger size
                 JDialog resultDialog = new JDialog(this, "Search Results", true);
@@ -373,27 +539,10 @@ public class HomeFinderApp extends JFrame {
                 resultDialog.setLocationRelativeTo(this);
                 resultDialog.getContentPane().setBackground(new Color(210, 225, 240)); // Match the light blue background
     
-                JPanel resultsPanel = new JPanel();
-                resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
-                resultsPanel.setBackground(new Color(210, 225, 240)); // Light blue background
-    
-                if (results.isEmpty()) {
-                    // If no properties found, show message in the same dialog
-                    JLabel noResultsLabel = new JLabel("No properties found matching the search criteria.", SwingConstants.CENTER);
-                    noResultsLabel.setFont(new Font("Arial", Font.BOLD, 18));
-                    resultsPanel.add(noResultsLabel);
-                } else {
-                    // If properties are found, display them
-                    for (Property property : results) {
-                        JPanel propertyPanel = createPropertyPanel(property);
-                        resultsPanel.add(propertyPanel);
-                        resultsPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Spacer between panels
-                    }
-                }
-    
-                JScrollPane scrollPane = new JScrollPane(resultsPanel);
-                scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-                scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+                // If no properties found, show message in the same dialog
+                JScrollPane scrollPane = results.isEmpty()
+                        ? createNoResultsPane()
+                        : createPropertyList(results, null);
                 resultDialog.add(scrollPane, BorderLayout.CENTER);
     
                 // Add close button at the bottom
@@ -426,40 +575,10 @@ public class HomeFinderApp extends JFrame {
         resultsDialog.setLayout(new BorderLayout());
         resultsDialog.setLocationRelativeTo(this);
 
-        JPanel resultsPanel = new JPanel();
-        resultsPanel.setLayout(new BoxLayout(resultsPanel, BoxLayout.Y_AXIS));
-        resultsPanel.setBackground(new Color(210, 225, 240)); // Light blue background
-
-        if (results.isEmpty()) {
-            // If no properties found, show message in the same dialog
-            JLabel noResultsLabel = new JLabel("No properties found matching the search criteria.", SwingConstants.CENTER);
-            noResultsLabel.setFont(new Font("Arial", Font.BOLD, 18));
-            resultsPanel.add(noResultsLabel);
-        } else {
-            // If properties are found, display them
-            for (Property property : results) {
-                JPanel propertyPanel = createPropertyPanel(property);
-
-                // Create Buy button for each property
-                JButton buyButton = new JButton("Buy");
-                buyButton.setPreferredSize(new Dimension(100, 30));
-                buyButton.setBackground(new Color(46, 204, 113));
-                buyButton.setForeground(Color.WHITE);
-                buyButton.setFont(new Font("Arial", Font.BOLD, 16));
-
-                // Action listener for Buy button
-                buyButton.addActionListener(e -> buyProperty(property, resultsDialog));
-
-                // Add the Buy button to the property panel
-                propertyPanel.add(buyButton);
-                resultsPanel.add(propertyPanel);
-                resultsPanel.add(Box.createRigidArea(new Dimension(0, 10))); // Spacer between panels
-            }
-        }
-
-        JScrollPane scrollPane = new JScrollPane(resultsPanel);
-        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        // If no properties found, show message in the same dialog; buying one closes the dialog
+        JScrollPane scrollPane = results.isEmpty()
+                ? createNoResultsPane()
+                : createPropertyList(results, resultsDialog);
 
         // Add close button at the bottom
         JPanel buttonPanel = new JPanel();
@@ -479,7 +598,6 @@ public class HomeFinderApp extends JFrame {
 
     // Buyer functionality: View transaction history
     private void viewBuyerTransactions() {
-        List<Transaction> allTransactions = fileHandler.loadTransactions();
         String projectName = JOptionPane.showInputDialog(this, "Enter the project name to view your transactions:");
 
         if (projectName == null || projectName.trim().isEmpty()) {
@@ -487,37 +605,98 @@ public class HomeFinderApp extends JFrame {
             return;
         }
 
-        List<Transaction> projectTransactions = filterTransactionsByProjectName(allTransactions, projectName);
+        // The first lookup may have to index the whole history, so it runs in the
+        // background behind a progress dialog; closing the dialog cancels the load
+        String name = projectName.trim();
+        JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        LoadMonitor monitor = new LoadMonitor((done, total) -> SwingUtilities.invokeLater(() -> {
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(total > 0 ? (int) (done * 1000 / total) : 0);
+        }));
+
+        JDialog progressDialog = new JDialog(this, "Loading Transactions", false);
+        progressDialog.setSize(350, 120);
+        progressDialog.setLayout(new BorderLayout());
+        progressDialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        progressDialog.add(new JLabel("Loading transactions for " + name + "...", SwingConstants.CENTER), BorderLayout.NORTH);
+        progressDialog.add(progressBar, BorderLayout.CENTER);
+        JButton cancelButton = new JButton("Cancel");
+        JPanel cancelPanel = new JPanel();
+        cancelPanel.add(cancelButton);
+        progressDialog.add(cancelPanel, BorderLayout.SOUTH);
+
+        // Indexed lookup of the newest five rows, then the monthly rollups; one after the other so they share the bar
+        CompletableFuture<List<Transaction>> recentFuture = fileHandler.getRecentTransactionsAsync(name, 5, monitor);
+        CompletableFuture<List<MonthlyTrend>> trendFuture = recentFuture.thenCompose(recent -> recent.isEmpty()
+                ? CompletableFuture.completedFuture(List.of())
+                : fileHandler.getMonthlyTrendsAsync(name, monitor));
+        CompletableFuture<MonthlyTrend> overallFuture = trendFuture.thenCompose(trends -> trends.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : fileHandler.getSchemeTrendAsync(name, monitor));
+
+        Runnable cancel = () -> {
+            monitor.cancel();
+            recentFuture.cancel(true);
+            trendFuture.cancel(true);
+            overallFuture.cancel(true);
+        };
+        cancelButton.addActionListener(e -> {
+            cancel.run();
+            progressDialog.dispose();
+        });
+        progressDialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancel.run();
+            }
+        });
 
-        // Sort transactions by date in descending order
-        projectTransactions.sort(Comparator.comparing(Transaction::getTransactionDate).reversed());
+        overallFuture.whenComplete((overall, error) -> SwingUtilities.invokeLater(() -> {
+            if (monitor.isCancelled()) {
+                return;
+            }
+            progressDialog.dispose();
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Failed to load transactions for the project: " + name, "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            showTransactions(name, recentFuture.join(), trendFuture.join(), overall);
+        }));
 
-        // Get the last 5 transactions, if available
-        List<Transaction> lastFiveTransactions = projectTransactions.size() > 5
-                ? projectTransactions.subList(0, 5) : projectTransactions;
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setVisible(true);
+    }
 
+    private void showTransactions(String projectName, List<Transaction> lastFiveTransactions, List<MonthlyTrend> trends,
+            MonthlyTrend overall) {
         if (lastFiveTransactions.isEmpty()) {
             JOptionPane.showMessageDialog(this, "No transactions found for the project: " + projectName, "No Results", JOptionPane.INFORMATION_MESSAGE);
         } else {
             JDialog transactionsDialog = new JDialog(this, "Last 5 Transactions for " + projectName, true);
-            transactionsDialog.setSize(800, 400);
+            transactionsDialog.setSize(950, 600);
             transactionsDialog.setLayout(new BorderLayout());
 
             String[] columnNames = {"Date", "Size SqFt", "Price", "Address"};
             DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
             JTable table = new JTable(tableModel);
 
-            for (Transaction transaction : lastFiveTransactions) {
-                tableModel.addRow(new Object[]{
-                    transaction.getTransactionDate(),
-                    transaction.getTransactionSqFt(),
-                    transaction.getTransactionPrice(),
-                    transaction.getAddress()
-                });
-            }
+            fillTransactionRows(tableModel, lastFiveTransactions);
 
             JScrollPane scrollPane = new JScrollPane(table);
-            transactionsDialog.add(scrollPane, BorderLayout.CENTER);
+            scrollPane.setBorder(BorderFactory.createTitledBorder("Last 5 Transactions"));
+
+            // Monthly trend for the project, read from the precomputed rollups
+            JTable trendTable = createTrendTable(trends, overall);
+            JScrollPane trendPane = new JScrollPane(trendTable);
+            trendPane.setBorder(BorderFactory.createTitledBorder("Monthly Price Trend (last 24 months)"));
+
+            JPanel tablesPanel = new JPanel(new GridLayout(2, 1));
+            tablesPanel.add(scrollPane);
+            tablesPanel.add(trendPane);
+            transactionsDialog.add(tablesPanel, BorderLayout.CENTER);
 
             JPanel buttonPanel = new JPanel();
             JButton closeButton = new JButton("Close");
@@ -525,11 +704,80 @@ public class HomeFinderApp extends JFrame {
             buttonPanel.add(closeButton);
             transactionsDialog.add(buttonPanel, BorderLayout.SOUTH);
 
+            // Sales the ingest job adds for this project while the dialog is open show up in both tables
+            FileHandler.TransactionListener listener = appended -> {
+                if (appended.isEmpty() || appended.stream().anyMatch(t -> t.getProjectName().equalsIgnoreCase(projectName))) {
+                    CompletableFuture<List<Transaction>> recent = fileHandler.getRecentTransactionsAsync(projectName, 5, LoadMonitor.NONE);
+                    CompletableFuture<List<MonthlyTrend>> monthly = fileHandler.getMonthlyTrendsAsync(projectName, LoadMonitor.NONE);
+                    CompletableFuture<MonthlyTrend> whole = fileHandler.getSchemeTrendAsync(projectName, LoadMonitor.NONE);
+                    CompletableFuture.allOf(recent, monthly, whole).thenRun(() -> SwingUtilities.invokeLater(() -> {
+                        if (transactionsDialog.isDisplayable()) {
+                            fillTransactionRows(tableModel, recent.join());
+                            fillTrendRows((DefaultTableModel) trendTable.getModel(), monthly.join(), whole.join());
+                        }
+                    }));
+                }
+            };
+            fileHandler.addTransactionListener(listener);
+            transactionsDialog.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosed(WindowEvent e) {
+                    fileHandler.removeTransactionListener(listener);
+                }
+            });
+
             transactionsDialog.setLocationRelativeTo(this);
             transactionsDialog.setVisible(true);
         }
     }
 
+    private void fillTransactionRows(DefaultTableModel tableModel, List<Transaction> transactions) {
+        tableModel.setRowCount(0);
+        for (Transaction transaction : transactions) {
+            tableModel.addRow(new Object[]{
+                transaction.getTransactionDate(),
+                transaction.getTransactionSqFt(),
+                transaction.getTransactionPrice(),
+                transaction.getAddress()
+            });
+        }
+    }
+
+    // Table of monthly medians and volume, newest month first, under a row for all months together
+    private JTable createTrendTable(List<MonthlyTrend> trends, MonthlyTrend overall) {
+        String[] columnNames = {"Month", "Sales", "Median Price", "Price P10-P90", "Median Price/SqFt", "Price/SqFt P10-P90", "YoY Change"};
+        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
+        fillTrendRows(tableModel, trends, overall);
+        return new JTable(tableModel);
+    }
+
+    private void fillTrendRows(DefaultTableModel tableModel, List<MonthlyTrend> trends, MonthlyTrend overall) {
+        tableModel.setRowCount(0);
+        if (overall != null) {
+            addTrendRow(tableModel, "All months", overall);
+        }
+        for (int i = trends.size() - 1; i >= Math.max(0, trends.size() - 24); i--) {
+            addTrendRow(tableModel, trends.get(i).getMonth(), trends.get(i));
+        }
+    }
+
+    private void addTrendRow(DefaultTableModel tableModel, Object label, MonthlyTrend trend) {
+        double change = trend.getYearOverYearChange();
+        tableModel.addRow(new Object[]{
+            label,
+            trend.getVolume(),
+            formatTrendValue(trend.getMedianPrice()),
+            formatTrendValue(trend.getPriceP10()) + " - " + formatTrendValue(trend.getPriceP90()),
+            formatTrendValue(trend.getMedianPricePerSqft()),
+            formatTrendValue(trend.getPricePerSqftP10()) + " - " + formatTrendValue(trend.getPricePerSqftP90()),
+            Double.isNaN(change) ? "-" : String.format("%+.1f%%", change * 100)
+        });
+    }
+
+    private static String formatTrendValue(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%.1f", value);
+    }
+
     // Seller functionality: Display properties added by seller
     private void displaySellerProperties() {
         List<Property> sellerProperties = new ArrayList<>(); // Replace with properties added by this seller
@@ -539,19 +787,7 @@ public class HomeFinderApp extends JFrame {
         propertiesDialog.setLayout(new BorderLayout());
         propertiesDialog.setLocationRelativeTo(this);
 
-        JPanel propertiesPanel = new JPanel();
-        propertiesPanel.setLayout(new BoxLayout(propertiesPanel, BoxLayout.Y_AXIS));
-        propertiesPanel.setBackground(new Color(210, 225, 240));
-
-        for (Property property : sellerProperties) {
-            JPanel propertyPanel = createPropertyPanel(property);
-            propertiesPanel.add(propertyPanel);
-            propertiesPanel.add(Box.createRigidArea(new Dimension(0, 10)));
-        }
-
-        JScrollPane scrollPane = new JScrollPane(propertiesPanel);
-        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        JScrollPane scrollPane = createPropertyList(sellerProperties, null);
 
         JPanel buttonPanel = new JPanel();
         buttonPanel.setBackground(new Color(5, 33, 67));
@@ -603,6 +839,15 @@ public class HomeFinderApp extends JFrame {
         return field;
     }
 
+    // Value of an optional numeric field, or 0 when it is blank
+    private static int parseOptionalInt(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     private void addInputField(JDialog dialog, GridBagConstraints gbc, String label, JComboBox<String> comboBox, int row) {
         gbc.gridx = 0;
         gbc.gridy = row;
@@ -615,94 +860,68 @@ public class HomeFinderApp extends JFrame {
         dialog.add(comboBox, gbc);
     }
 
-    // Helper method to create a property panel
-    private JPanel createPropertyPanel(Property property) {
-        JPanel panel = new JPanel(new GridBagLayout());
-        panel.setPreferredSize(new Dimension(800, 250));
-        panel.setBorder(BorderFactory.createLineBorder(new Color(5, 33, 67), 2));
-        panel.setBackground(new Color(230, 240, 255));
-
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 10, 10, 10);
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        gbc.anchor = GridBagConstraints.WEST;
-
-        JLabel imageLabel = new JLabel();
-        ImageIcon propertyImage = loadImage(property.getScheme());
-        imageLabel.setIcon(propertyImage);
-        imageLabel.setPreferredSize(new Dimension(200, 200));
-        gbc.gridheight = 6;
-        panel.add(imageLabel, gbc);
-
-        gbc.gridheight = 1;
-        gbc.gridx = 1;
-
-        JLabel projectNameLabel = new JLabel("Project: " + property.getScheme());
-        projectNameLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        panel.add(projectNameLabel, gbc);
-
-        gbc.gridy++;
-        JLabel locationLabel = new JLabel("Location: " + property.getAddress());
-        locationLabel.setFont(new Font("Arial", Font.PLAIN, 16));
-        panel.add(locationLabel, gbc);
-
-        gbc.gridy++;
-        JLabel sizeLabel = new JLabel("Size: " + property.getSqFt() + " SqFt (" + property.getSizeSqM() + " SqM)");
-        sizeLabel.setFont(new Font("Arial", Font.PLAIN, 16));
-        panel.add(sizeLabel, gbc);
-
-        gbc.gridy++;
-        JLabel floorsLabel = new JLabel("Number of Floors: " + property.getNoOfFloors());
-        floorsLabel.setFont(new Font("Arial", Font.PLAIN, 16));
-        panel.add(floorsLabel, gbc);
-
-        gbc.gridy++;
-        JLabel priceLabel = new JLabel("Price: $" + String.format("%.1f", property.getPrice()));
-        priceLabel.setFont(new Font("Arial", Font.PLAIN, 16));
-        panel.add(priceLabel, gbc);
-
-        gbc.gridy++;
-        JLabel yearLabel = new JLabel("Year: " + property.getYear());
-        yearLabel.setFont(new Font("Arial", Font.PLAIN, 16));
-        panel.add(yearLabel, gbc);
+    // Helper method to create a scrollable property list. Rows are painted by one shared
+    // renderer, so only the visible cards cost anything. A bought property is removed from
+    // the list, and closeOnPurchase (if any) is closed.
+    private JScrollPane createPropertyList(List<Property> properties, JDialog closeOnPurchase) {
+        DefaultListModel<Property> model = new DefaultListModel<>();
+        model.addAll(properties);
+        JList<Property> list = new JList<>(model);
+        PropertyCellRenderer renderer = new PropertyCellRenderer(IMAGE_CACHE);
+        list.setCellRenderer(renderer);
+        // Fixed cell sizes, otherwise the list would render every row once just to measure it
+        list.setFixedCellHeight(PropertyCellRenderer.CELL_HEIGHT);
+        list.setFixedCellWidth(PropertyCellRenderer.MIN_CELL_WIDTH);
+        list.setBackground(new Color(210, 225, 240)); // Light blue background
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0 && renderer.isBuyButtonAt(list, index, e.getPoint())) {
+                    Property property = model.getElementAt(index);
+                    buyProperty(property, () -> {
+                        model.removeElement(property);
+                        if (closeOnPurchase != null) {
+                            closeOnPurchase.dispose();
+                        }
+                    });
+                }
+            }
+        });
 
-        gbc.gridy++;
-        JLabel pricePerSqFtLabel = new JLabel("Price per Sq Ft: $" + String.format("%.1f", property.getPricePerSqft()));
-        pricePerSqFtLabel.setFont(new Font("Arial", Font.PLAIN, 16));
-        panel.add(pricePerSqFtLabel, gbc);
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(20);
+        return scrollPane;
+    }
 
-        gbc.gridy++;
-        JButton buyButton = new JButton("Buy");
-        buyButton.setPreferredSize(new Dimension(100, 30));
-        buyButton.setBackground(new Color(46, 204, 113));
-        buyButton.setForeground(Color.WHITE);
-        buyButton.setFont(new Font("Arial", Font.BOLD, 16));
-        buyButton.addActionListener(e -> buyProperty(property, null));
-        panel.add(buyButton, gbc);
-
-        return panel;
+    private JScrollPane createNoResultsPane() {
+        JPanel resultsPanel = new JPanel();
+        resultsPanel.setBackground(new Color(210, 225, 240)); // Light blue background
+        JLabel noResultsLabel = new JLabel("No properties found matching the search criteria.", SwingConstants.CENTER);
+        noResultsLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        resultsPanel.add(noResultsLabel);
+        return new JScrollPane(resultsPanel);
     }
 
     // Helper method to filter properties
-    private List<Property> filterProperties(List<Property> properties, int minSqFt, int maxSqFt, double minPrice, double maxPrice, String propertyType, String projectName) {
-        List<Property> filteredProperties = new ArrayList<>();
-
-        for (Property property : properties) {
-            boolean matchesSqFt = property.getSqFt() >= minSqFt && property.getSqFt() <= maxSqFt;
-            boolean matchesPrice = property.getPrice() >= minPrice && property.getPrice() <= maxPrice;
-            boolean matchesType = propertyType.isEmpty() || property.getPropertyType().equalsIgnoreCase(propertyType);
-            boolean matchesProjectName = projectName.isEmpty() || property.getScheme().equalsIgnoreCase(projectName);
-
-            if (matchesSqFt && matchesPrice && matchesType && matchesProjectName) {
-                filteredProperties.add(property);
-            }
+    private List<Property> filterProperties(int minSqFt, int maxSqFt, double minPrice, double maxPrice, String propertyType, String projectName) {
+        // Range lookup on sqFt/price, then AND in the type and scheme bitmaps
+        BitSet matches = propertyIndex.search(minSqFt, maxSqFt, minPrice, maxPrice);
+        if (!propertyType.isEmpty()) {
+            matches.and(propertyIndex.whereType(propertyType::equalsIgnoreCase));
+        }
+        if (!projectName.isEmpty()) {
+            matches.and(propertyIndex.whereScheme(projectName::equalsIgnoreCase));
         }
-        return filteredProperties;
+        return propertyIndex.get(matches);
     }
 
     // Helper method to buy a property
-    private void buyProperty(Property property, JDialog resultsDialog) {
+    private void buyProperty(Property property, Runnable onPurchased) {
         int confirm = JOptionPane.showConfirmDialog(this,
                 "Are you sure you want to buy this property?\n" + property.getDetails(),
                 "Confirm Purchase",
@@ -723,41 +942,33 @@ public class HomeFinderApp extends JFrame {
                     .setPricePerSqft(property.getPricePerSqft())
                     .build();
 
-            try {
-                fileHandler.writeTransaction(transaction);
-                allProperties.remove(property);
-                fileHandler.updatePropertiesFile(allProperties);
-
-                JOptionPane.showMessageDialog(this, "Property purchased successfully!\nTransaction recorded.", "Success", JOptionPane.INFORMATION_MESSAGE);
-                if (resultsDialog != null) {
-                    resultsDialog.dispose();
-                }
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(this, "Failed to record the transaction: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            fileHandler.purchasePropertyAsync(property, transaction)
+                    .whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                            JOptionPane.showMessageDialog(this, "Failed to record the transaction: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                            return;
+                        }
+                        if (result == ListingRegistry.PurchaseResult.CHANGED) {
+                            JOptionPane.showMessageDialog(this, "This listing has changed since it was loaded. Please search again.", "Listing Changed", JOptionPane.WARNING_MESSAGE);
+                            return;
+                        }
+                        // Sold either way, so it leaves this window's listing too
+                        allProperties.remove(property);
+                        propertyIndex.remove(property);
+                        if (result == ListingRegistry.PurchaseResult.ALREADY_SOLD) {
+                            JOptionPane.showMessageDialog(this, "Sorry, this property has already been sold to another buyer.", "Already Sold", JOptionPane.WARNING_MESSAGE);
+                        } else {
+                            JOptionPane.showMessageDialog(this, "Property purchased successfully!\nTransaction recorded.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                        onPurchased.run();
+                    }));
         }
     }
 
     // Helper method to get all unique project names for the ComboBox
     private String[] getAllProjectNames() {
-        Set<String> projectNames = new HashSet<>();
-        for (Property property : allProperties) {
-            projectNames.add(property.getScheme());
-        }
-        return projectNames.toArray(new String[0]);
-    }
-
-    // Helper method to load an image for the property based on the scheme or project name
-    private ImageIcon loadImage(String scheme) {
-        String imagePath = "images/" + scheme.toLowerCase().replace(" ", "_") + ".jpg";
-        File imageFile = new File(imagePath);
-        if (imageFile.exists()) {
-            ImageIcon icon = new ImageIcon(imagePath);
-            Image img = icon.getImage().getScaledInstance(150, 150, Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
-        } else {
-            return new ImageIcon(new ImageIcon("pexels-binyamin-mellish-106399.jpg").getImage().getScaledInstance(150, 150, Image.SCALE_SMOOTH));
-        }
+        return propertyIndex.schemeNames().toArray(new String[0]);
     }
 
     // Helper method to filter transactions by project name
@@ -0,0 +1,181 @@
+package views;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+// Shared cache of property thumbnails keyed by scheme. Each image is decoded and
+// scaled once, off the EDT, with ImageIO. Until a thumbnail is ready callers get the
+// shared fallback thumbnail (blank while that is still loading) and their callback
+// runs on the EDT when the real one arrives. The cache is bounded by decoded pixel
+// bytes and evicts the least recently used thumbnails first.
+public class ImageCache {
+    public static final int THUMBNAIL_SIZE = 150;
+
+    private static final String FALLBACK_PATH = "pexels-binyamin-mellish-106399.jpg";
+
+    private final long maxBytes;
+    private long bytes;
+    private final LinkedHashMap<String, ImageIcon> thumbnails = new LinkedHashMap<>(16, 0.75f, true); // Access order
+    private final Set<String> missing = new HashSet<>(); // Paths with no readable image, served the fallback
+    private final Map<String, List<Runnable>> pending = new HashMap<>(); // Path -> callbacks waiting on its decode
+    private final ImageIcon blank = new ImageIcon(new BufferedImage(THUMBNAIL_SIZE, THUMBNAIL_SIZE, BufferedImage.TYPE_INT_ARGB));
+    private ImageIcon fallback; // Pinned, not counted against maxBytes
+
+    private final ExecutorService decoder;
+
+    public ImageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.decoder = Executors.newFixedThreadPool(2, task -> {
+            Thread thread = new Thread(task, "image-decoder-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Thumbnail for a scheme, or a placeholder while it loads; onReady runs on the EDT
+    // once a better image is available
+    public synchronized ImageIcon get(String scheme, Runnable onReady) {
+        String path = "images/" + scheme.toLowerCase().replace(" ", "_") + ".jpg";
+        ImageIcon thumbnail = thumbnails.get(path);
+        if (thumbnail != null) {
+            return thumbnail;
+        }
+        if (!missing.contains(path)) {
+            load(path, onReady);
+        }
+        return getFallback(onReady);
+    }
+
+    private ImageIcon getFallback(Runnable onReady) {
+        if (fallback != null) {
+            return fallback;
+        }
+        if (!missing.contains(FALLBACK_PATH)) {
+            load(FALLBACK_PATH, onReady);
+        }
+        return blank;
+    }
+
+    private void load(String path, Runnable onReady) {
+        List<Runnable> callbacks = pending.get(path);
+        if (callbacks != null) {
+            callbacks.add(onReady);
+            return;
+        }
+        callbacks = new ArrayList<>();
+        callbacks.add(onReady);
+        pending.put(path, callbacks);
+        decoder.execute(() -> {
+            BufferedImage image = null;
+            try {
+                File file = new File(path);
+                if (file.isFile()) {
+                    image = decode(file);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not read image " + path + ": " + e.getMessage());
+            }
+            loaded(path, image == null ? null : new ImageIcon(scale(image)));
+        });
+    }
+
+    private void loaded(String path, ImageIcon thumbnail) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            callbacks = pending.remove(path);
+            if (thumbnail == null) {
+                missing.add(path);
+            } else if (path.equals(FALLBACK_PATH)) {
+                fallback = thumbnail;
+            } else {
+                thumbnails.put(path, thumbnail);
+                bytes += pixelBytes(thumbnail);
+                evict();
+            }
+        }
+        for (Runnable callback : callbacks) {
+            SwingUtilities.invokeLater(callback);
+        }
+    }
+
+    private void evict() {
+        Iterator<ImageIcon> eldest = thumbnails.values().iterator();
+        while (bytes > maxBytes && thumbnails.size() > 1) {
+            bytes -= pixelBytes(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static long pixelBytes(ImageIcon icon) {
+        return 4L * icon.getIconWidth() * icon.getIconHeight();
+    }
+
+    // Decode with source subsampling so large photos are not decoded at full size;
+    // at least twice the thumbnail size is kept for the final smooth scale
+    private static BufferedImage decode(File file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(reader.getWidth(0), reader.getHeight(0)) / (2 * THUMBNAIL_SIZE));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Scale to THUMBNAIL_SIZE square by repeated halving, which keeps bilinear
+    // filtering close to the quality of SCALE_SMOOTH
+    private static BufferedImage scale(BufferedImage image) {
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(THUMBNAIL_SIZE, width / 2);
+            height = Math.max(THUMBNAIL_SIZE, height / 2);
+            if (width < THUMBNAIL_SIZE * 2 && height < THUMBNAIL_SIZE * 2) {
+                width = THUMBNAIL_SIZE;
+                height = THUMBNAIL_SIZE;
+            }
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = scaled;
+        } while (width != THUMBNAIL_SIZE || height != THUMBNAIL_SIZE);
+        return current;
+    }
+}
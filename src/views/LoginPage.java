@@ -4,6 +4,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import controllers.FileHandler;
 import models.User;
 
@@ -94,8 +96,26 @@ public class LoginPage extends JFrame {
         String username = usernameField.getText().trim(); // Get username
         String password = new String(passwordField.getPassword()).trim(); // Get password
 
-        User user = fileHandler.authenticateUser(username, password); // Authenticate user
-        if (user != null) {
+        // Password hashing runs off the EDT; the result is handled back on it
+        loginButton.setEnabled(false);
+        messageLabel.setText("Signing in...");
+        messageLabel.setForeground(Color.WHITE);
+        fileHandler.authenticateUserAsync(username, password)
+                .whenComplete((user, error) -> SwingUtilities.invokeLater(() -> onAuthenticated(user, error)));
+    }
+
+    private void onAuthenticated(User user, Throwable error) {
+        loginButton.setEnabled(true);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                messageLabel.setText("Server busy, please try again.");
+            } else {
+                System.err.println("Login failed: " + cause);
+                messageLabel.setText("Login error, please try again.");
+            }
+            messageLabel.setForeground(new Color(231, 76, 60));
+        } else if (user != null) {
             messageLabel.setText("Login successful!");
             messageLabel.setForeground(new Color(46, 204, 113));
             new HomeFinderApp(user).setVisible(true); // Open home app with user info
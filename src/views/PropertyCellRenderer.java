@@ -0,0 +1,114 @@
+package views;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+
+import models.Property;
+
+// Paints one property card per list row. A single panel is refilled for each visible
+// row, so a list of thousands of listings holds one set of components instead of one
+// per property. Thumbnails come from the shared ImageCache; a row painted before its
+// image is decoded shows the fallback and the list is repainted when it is ready.
+public class PropertyCellRenderer extends JPanel implements ListCellRenderer<Property> {
+    private static final long serialVersionUID = 1L;
+
+    public static final int CELL_HEIGHT = 260;
+    public static final int MIN_CELL_WIDTH = 600; // Cells stretch to the list width above this
+
+    private static final Color CARD_COLOR = new Color(230, 240, 255);
+    private static final Color SELECTED_COLOR = new Color(200, 220, 250);
+    private static final Color LIST_COLOR = new Color(210, 225, 240);
+
+    private final ImageCache imageCache;
+
+    private final JLabel imageLabel = new JLabel();
+    private final JLabel projectNameLabel = new JLabel();
+    private final JLabel locationLabel = new JLabel();
+    private final JLabel sizeLabel = new JLabel();
+    private final JLabel floorsLabel = new JLabel();
+    private final JLabel priceLabel = new JLabel();
+    private final JLabel yearLabel = new JLabel();
+    private final JLabel pricePerSqFtLabel = new JLabel();
+    private final JButton buyButton = new JButton("Buy");
+
+    public PropertyCellRenderer(ImageCache imageCache) {
+        this.imageCache = imageCache;
+        setLayout(new GridBagLayout());
+        setPreferredSize(new Dimension(800, CELL_HEIGHT));
+        // The bottom matte stands in for the spacer that used to separate the panels
+        setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createMatteBorder(0, 0, 10, 0, LIST_COLOR),
+                BorderFactory.createLineBorder(new Color(5, 33, 67), 2)));
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 10, 10, 10);
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        gbc.anchor = GridBagConstraints.WEST;
+
+        imageLabel.setPreferredSize(new Dimension(200, 200));
+        gbc.gridheight = 6;
+        add(imageLabel, gbc);
+
+        gbc.gridheight = 1;
+        gbc.gridx = 1;
+        gbc.insets = new Insets(2, 10, 2, 10);
+
+        projectNameLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        JLabel[] detailLabels = {locationLabel, sizeLabel, floorsLabel, priceLabel, yearLabel, pricePerSqFtLabel};
+        add(projectNameLabel, gbc);
+        for (JLabel label : detailLabels) {
+            label.setFont(new Font("Arial", Font.PLAIN, 16));
+            gbc.gridy++;
+            add(label, gbc);
+        }
+
+        gbc.gridy++;
+        buyButton.setPreferredSize(new Dimension(100, 30));
+        buyButton.setBackground(new Color(46, 204, 113));
+        buyButton.setForeground(Color.WHITE);
+        buyButton.setFont(new Font("Arial", Font.BOLD, 16));
+        add(buyButton, gbc);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Property> list, Property property, int index,
+            boolean isSelected, boolean cellHasFocus) {
+        imageLabel.setIcon(imageCache.get(property.getScheme(), list::repaint));
+        projectNameLabel.setText("Project: " + property.getScheme());
+        locationLabel.setText("Location: " + property.getAddress());
+        sizeLabel.setText("Size: " + property.getSqFt() + " SqFt (" + property.getSizeSqM() + " SqM)");
+        floorsLabel.setText("Number of Floors: " + property.getNoOfFloors());
+        priceLabel.setText("Price: $" + String.format("%.1f", property.getPrice()));
+        yearLabel.setText("Year: " + property.getYear());
+        pricePerSqFtLabel.setText("Price per Sq Ft: $" + String.format("%.1f", property.getPricePerSqft()));
+        setBackground(isSelected ? SELECTED_COLOR : CARD_COLOR);
+        return this;
+    }
+
+    // The painted Buy button is not a live component, so clicks are hit-tested against
+    // where it would be laid out in the given row
+    public boolean isBuyButtonAt(JList<Property> list, int index, Point point) {
+        Rectangle cell = list.getCellBounds(index, index);
+        if (cell == null || !cell.contains(point)) {
+            return false;
+        }
+        getListCellRendererComponent(list, list.getModel().getElementAt(index), index, false, false);
+        setBounds(0, 0, cell.width, cell.height);
+        doLayout();
+        return buyButton.getBounds().contains(point.x - cell.x, point.y - cell.y);
+    }
+}
@@ -4,6 +4,8 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import controllers.FileHandler;
 import models.User;
 
@@ -117,13 +119,26 @@ public class SignupPage extends JFrame {
             messageLabel.setForeground(new Color(231, 76, 60));
         } else {
             User newUser = new User(username, password, email, role);
-            fileHandler.saveUser(newUser);
-            messageLabel.setText("Signup successful! User saved.");
-            messageLabel.setForeground(new Color(46, 204, 113));
-
-            // Redirect to LoginPage after successful signup
-            new LoginPage(); // Create a new instance of LoginPage
-            this.dispose(); // Close the signup window
+            // The password is hashed off the EDT before the user is saved
+            fileHandler.saveUserAsync(newUser).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof RejectedExecutionException) {
+                        messageLabel.setText("Server busy, please try again.");
+                    } else {
+                        System.err.println("Signup failed: " + cause);
+                        messageLabel.setText("Signup error, please try again.");
+                    }
+                    messageLabel.setForeground(new Color(231, 76, 60));
+                    return;
+                }
+                messageLabel.setText("Signup successful! User saved.");
+                messageLabel.setForeground(new Color(46, 204, 113));
+
+                // Redirect to LoginPage after successful signup
+                new LoginPage(); // Create a new instance of LoginPage
+                this.dispose(); // Close the signup window
+            }));
         }
     }
 